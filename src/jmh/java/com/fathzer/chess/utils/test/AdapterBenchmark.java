@@ -0,0 +1,135 @@
+package com.fathzer.chess.utils.test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.fathzer.chess.utils.model.IBoard;
+import com.fathzer.chess.utils.model.TestAdapter;
+import com.fathzer.chess.utils.model.Variant;
+import com.fathzer.chess.utils.test.PGNTest.PGNConverter;
+import com.fathzer.chess.utils.test.SANTest.SANConverter;
+
+/** A <a href="https://github.com/openjdk/jmh">JMH</a> benchmark of the operations of the adapter loaded by {@link AdapterLoader}.
+ * <br>The {@link #getSAN(SANState, Blackhole) getSAN} and {@link #toPGN(PGNState) toPGN} benchmarks fail if the adapter does not implement
+ * {@link SANConverter} or {@link PGNConverter}. Exclude them with a JMH regular expression (for instance <code>AdapterBenchmark.(fenToBoard|toMove)</code>).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AdapterBenchmark {
+	/** The tested position. */
+	@Param({AbstractAdaptableTest.STANDARD_START_FEN,
+		"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"})
+	public String fen;
+
+	private TestAdapter<IBoard<Object>, Object> adapter;
+	private IBoard<Object> board;
+	private List<Object> moves;
+	private List<String> uciMoves;
+
+	/** Creates the board and lists its legal moves. */
+	@Setup
+	public void setUp() {
+		adapter = new AdapterLoader().get();
+		board = adapter.fenToBoard(fen, Variant.STANDARD);
+		moves = board.getMoves().stream().filter(board::isLegal).toList();
+		uciMoves = moves.stream().map(board::toUCI).toList();
+	}
+
+	/** The state of the {@link AdapterBenchmark#getSAN(SANState, Blackhole)} benchmark. */
+	@State(Scope.Thread)
+	public static class SANState {
+		private SANConverter<IBoard<Object>, Object> converter;
+
+		/** Gets the SAN converter.
+		 * @param benchmark the benchmark state
+		 * @throws IllegalStateException if the adapter is not a {@link SANConverter}
+		 */
+		@SuppressWarnings("unchecked")
+		@Setup
+		public void setUp(AdapterBenchmark benchmark) {
+			if (!(benchmark.adapter instanceof SANConverter)) {
+				throw new IllegalStateException(benchmark.adapter.getClass()+" does not implement "+SANConverter.class);
+			}
+			converter = (SANConverter<IBoard<Object>, Object>) benchmark.adapter;
+		}
+	}
+
+	/** The state of the {@link AdapterBenchmark#toPGN(PGNState)} benchmark. */
+	@State(Scope.Thread)
+	public static class PGNState {
+		private PGNConverter<IBoard<Object>> converter;
+		private IBoard<Object> game;
+
+		/** Gets the PGN converter and plays a game.
+		 * @param benchmark the benchmark state
+		 * @throws IllegalStateException if the adapter is not a {@link PGNConverter}
+		 */
+		@SuppressWarnings("unchecked")
+		@Setup
+		public void setUp(AdapterBenchmark benchmark) {
+			if (!(benchmark.adapter instanceof PGNConverter)) {
+				throw new IllegalStateException(benchmark.adapter.getClass()+" does not implement "+PGNConverter.class);
+			}
+			converter = (PGNConverter<IBoard<Object>>) benchmark.adapter;
+			game = benchmark.adapter.fenToBoard(AbstractAdaptableTest.STANDARD_START_FEN, Variant.STANDARD);
+			for (String move : PGNTest.FATAL_ATTRACTION_MOVES.split(" ")) {
+				game.makeMove(game.toMove(move));
+			}
+		}
+	}
+
+	/** Creates a board from a FEN.
+	 * @return the board
+	 */
+	@Benchmark
+	public IBoard<Object> fenToBoard() {
+		return adapter.fenToBoard(fen, Variant.STANDARD);
+	}
+
+	/** Converts all the legal moves of the position from UCI.
+	 * @param blackhole the JMH black hole
+	 */
+	@Benchmark
+	public void toMove(Blackhole blackhole) {
+		for (int i = 0; i < uciMoves.size(); i++) {
+			blackhole.consume(board.toMove(uciMoves.get(i)));
+		}
+	}
+
+	/** Converts all the legal moves of the position to SAN.
+	 * @param state the SAN state
+	 * @param blackhole the JMH black hole
+	 */
+	@Benchmark
+	public void getSAN(SANState state, Blackhole blackhole) {
+		for (int i = 0; i < moves.size(); i++) {
+			blackhole.consume(state.converter.getSAN(board, moves.get(i)));
+		}
+	}
+
+	/** Converts a 37 plies game to PGN.
+	 * @param state the PGN state
+	 * @return the PGN
+	 */
+	@Benchmark
+	public String toPGN(PGNState state) {
+		return state.converter.toPGN(state.game);
+	}
+}
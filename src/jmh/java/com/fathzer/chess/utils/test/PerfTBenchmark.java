@@ -0,0 +1,60 @@
+package com.fathzer.chess.utils.test;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fathzer.chess.utils.model.IBoard;
+import com.fathzer.chess.utils.model.TestAdapter;
+import com.fathzer.chess.utils.model.Variant;
+import com.fathzer.chess.utils.test.helper.perft.PerfT;
+
+/** A <a href="https://github.com/openjdk/jmh">JMH</a> benchmark of {@link PerfT#divide(IBoard, int)} with the adapter loaded by {@link AdapterLoader}.
+ * <br>The score is the number of perft per second. Multiply it by the number of leaves of the position to get the nodes per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PerfTBenchmark {
+	/** The position to test. */
+	@Param({AbstractAdaptableTest.STANDARD_START_FEN,
+		"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+		"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"})
+	public String fen;
+
+	/** The depth of the perft. */
+	@Param({"3"})
+	public int depth;
+
+	private IBoard<Object> board;
+	private PerfT<Object> perfT;
+
+	/** Creates the board. */
+	@Setup
+	public void setUp() {
+		final TestAdapter<IBoard<Object>, Object> adapter = new AdapterLoader().get();
+		board = adapter.fenToBoard(fen, Variant.STANDARD);
+		perfT = new PerfT<>();
+	}
+
+	/** Runs the perft.
+	 * @return the number of leaves
+	 */
+	@Benchmark
+	public long divide() {
+		return perfT.divide(board, depth).getNbLeaves();
+	}
+}
@@ -0,0 +1,15 @@
+package com.fathzer.chess.utils.model;
+
+/** A board that can count its legal moves without playing them.
+ * <br>This optional interface allows {@link com.fathzer.chess.utils.test.helper.perft.PerfT} to count the leaves of the tree in bulk at the last ply.
+ * Without it, boards whose {@link #getMoves()} method returns <a href="https://www.chessprogramming.org/Pseudo-Legal_Move">pseudo legal</a> moves have to play and
+ * take back every leaf move to check its legality.
+ * <br>Implementations typically use pin and check masks to filter the pseudo legal moves.
+ * @param <M> the type of the move
+ */
+public interface BulkCountingBoard<M> extends IBoard<M> {
+	/** Gets the number of legal moves available on the board.
+	 * @return a positive or null int
+	 */
+	int countLegalMoves();
+}
@@ -0,0 +1,15 @@
+package com.fathzer.chess.utils.model;
+
+/** A board that can be copied.
+ * <br>This optional interface allows the tests that work in parallel (for instance {@link com.fathzer.chess.utils.test.helper.perft.ParallelPerfT}) to give each thread its own copy of the board.
+ * <br>Boards that do not implement it are copied by replaying the moves from the initial <a href="https://en.wikipedia.org/wiki/Forsyth%E2%80%93Edwards_Notation">FEN</a>, which is slower.
+ * @param <M> the type of the move
+ */
+public interface ForkableBoard<M> extends IBoard<M> {
+	/** Creates a copy of this board.
+	 * <br>The copy should be in the same position as this board and should share no mutable state with it, as the two boards can be used concurrently by different threads.
+	 * <br>The copy is not required to know the moves played on this board, so calling {@link #unmakeMove()} more times than {@link #makeMove(Object)} on the copy has an undefined behavior.
+	 * @return a new board
+	 */
+	IBoard<M> fork();
+}
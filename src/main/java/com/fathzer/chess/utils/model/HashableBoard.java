@@ -0,0 +1,14 @@
+package com.fathzer.chess.utils.model;
+
+/** A board that can compute a hash key of its position.
+ * <br>This optional interface allows some tests to cache results by position (for instance the hashed mode of {@link com.fathzer.chess.utils.test.helper.perft.PerfT}).
+ * @param <M> the type of the move
+ */
+public interface HashableBoard<M> extends IBoard<M> {
+	/** Gets the hash key of the current position.
+	 * <br>Two positions that differ by their pieces, side to move, castling rights or en passant square should have different keys
+	 * (typically, a <a href="https://www.chessprogramming.org/Zobrist_Hashing">Zobrist key</a>).
+	 * @return a long
+	 */
+	long getHashKey();
+}
@@ -13,6 +13,18 @@ public interface IBoard<M> {
 	 */
 	List<M> getMoves();
 	
+	/** Gets the list of moves available on the board in a list owned by the caller.
+	 * <br>This method allows the callers that explore a lot of positions (for instance {@link com.fathzer.chess.utils.test.helper.perft.PerfT}) to reuse the same lists.
+	 * Boards that override it can generate moves without allocating any list.
+	 * <br>The returned moves are the same as the ones returned by {@link #getMoves()}.
+	 * <br>The default implementation clears the list, then adds the moves returned by {@link #getMoves()}.
+	 * @param moves the list to fill. Its previous content is discarded.
+	 */
+	default void getMoves(List<M> moves) {
+		moves.clear();
+		moves.addAll(getMoves());
+	}
+	
 	/** Returns true if this IBoard's getMoves() method returns legal moves.
 	 * @return true if this IBoard's getMoves() method returns legal moves, false (the default value) otherwise (Typically, if it returns <a href="https://www.chessprogramming.org/Pseudo-Legal_Move">pseudo legal moves</a>)
 	 */
@@ -22,6 +34,8 @@ public interface IBoard<M> {
 	
 	/** Converts the UCI representation of a move to a move instance.
 	 * <br>By default, this method returns a move instance from the list returned by {@link #getMoves()}. If the move is not in the list, an {@link IllegalArgumentException} is thrown.
+	 * The UCI move is {@link UCIMoves#pack(String) packed} once, then compared with the {@link #toPackedMove(Object) packed moves} of the list.
+	 * <br>Boards that can parse UCI moves without generating all the moves should override this method.
 	 * <br>There is no guarantee that this method is called only with legal or pseudo-legal moves.
 	 * <br>If the move is illegal, the method should throw an {@link IllegalArgumentException}.
 	 * @param uciMove the move in UCI format
@@ -29,7 +43,13 @@ public interface IBoard<M> {
 	 * @throws IllegalArgumentException if move is not legal
 	 */
 	default M toMove(String uciMove) {
-		return getMoves().stream().filter(m -> toUCI(m).equals(uciMove)).findFirst().orElseThrow(() -> new IllegalArgumentException("Move " + uciMove + " is not legal"));
+		final int packed = UCIMoves.pack(uciMove);
+		for (M move : getMoves()) {
+			if (toPackedMove(move) == packed) {
+				return move;
+			}
+		}
+		throw new IllegalArgumentException("Move " + uciMove + " is not legal");
 	}
 	
 	/**
@@ -43,6 +63,21 @@ public interface IBoard<M> {
 		return move.toString();
 	}
 
+	/** Converts a move to its {@link UCIMoves packed UCI representation}.
+	 * <br>The default implementation packs the String returned by {@link #toUCI(Object)}, or returns -1 if it is not a valid UCI move
+	 * (so, such a move matches no UCI move in {@link #toMove(String)}).
+	 * Boards should override it to compute the packed move directly from their move representation (see {@link UCIMoves#pack(int, int, int)}), without building a String.
+	 * @param move the move to convert
+	 * @return the packed UCI representation of the move, a negative number if the move has no UCI representation
+	 */
+	default int toPackedMove(M move) {
+		try {
+			return UCIMoves.pack(toUCI(move));
+		} catch (IllegalArgumentException e) {
+			return -1;
+		}
+	}
+
 	/** Makes a move on the board.
 	 * <br>It is guaranteed that this method is called only with legal moves or moves returned by {@link #getMoves()}.
 	 * @param mv the move to make
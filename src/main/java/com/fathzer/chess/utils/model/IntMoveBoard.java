@@ -0,0 +1,29 @@
+package com.fathzer.chess.utils.model;
+
+/** A board that can represent its moves as int values.
+ * <br>This optional interface allows some tests (for instance {@link com.fathzer.chess.utils.test.helper.perft.PerfT}) to explore the game tree
+ * without allocating any object, so they measure the speed of the move generator and not the speed of the memory allocator.
+ * <br>The int representation of a move is free, it only has to be understood by {@link #makeMove(int)}.
+ * @param <M> the type of the move
+ */
+public interface IntMoveBoard<M> extends IBoard<M> {
+	/** The maximum number of moves {@link #getMoves(int[], int)} can write. */
+	int MAX_MOVES = 256;
+
+	/** Gets the moves available on the board.
+	 * <br>Like {@link #getMoves()}, the board is free to return legal or <a href="https://www.chessprogramming.org/Pseudo-Legal_Move">pseudo legal</a> moves
+	 * (see {@link #isGetMovesLegal()}).
+	 * @param buffer the array where to write the moves. It is guaranteed that the array has at least {@link #MAX_MOVES} elements after <code>offset</code>.
+	 * @param offset the index where to write the first move
+	 * @return the number of moves written in the buffer
+	 */
+	int getMoves(int[] buffer, int offset);
+
+	/** Makes a move on the board.
+	 * <br>It is guaranteed that this method is called only with moves returned by {@link #getMoves(int[], int)} in the current position.
+	 * @param move the move to make
+	 * @return true if the move was legal, false otherwise. If the move was illegal, the board is not modified.
+	 * @see #unmakeMove()
+	 */
+	boolean makeMove(int move);
+}
@@ -0,0 +1,35 @@
+package com.fathzer.chess.utils.model;
+
+/**
+ * A class that can classify moves, for instance to compute detailed <a href="https://www.chessprogramming.org/Perft_Results">perft statistics</a>.
+ * 
+ * @param <B> the type of the board
+ * @param <M> the type of the move
+ */
+@FunctionalInterface
+public interface MoveClassifier<B extends IBoard<M>, M> {
+	/** A flag set for captures, including en passant captures */
+	public static int CAPTURE = 1;
+	/** A flag set for en passant captures */
+	public static int EN_PASSANT = 2;
+	/** A flag set for castling moves */
+	public static int CASTLING = 4;
+	/** A flag set for promotions */
+	public static int PROMOTION = 8;
+	/** A flag set for moves that check the opponent king, including discovered, double checks and checkmates */
+	public static int CHECK = 16;
+	/** A flag set for moves that check the opponent king with a piece that did not move */
+	public static int DISCOVERED_CHECK = 32;
+	/** A flag set for moves that check the opponent king with two pieces */
+	public static int DOUBLE_CHECK = 64;
+	/** A flag set for moves that checkmate the opponent */
+	public static int CHECKMATE = 128;
+
+	/** Classifies a legal move.
+	 * <br>This method is called before the move is played. It is free to play it to compute the flags but the board should be in its initial state when the method returns.
+	 * @param board the board
+	 * @param move a legal move
+	 * @return a combination of this interface's constants (0 for a quiet move). Other bits are ignored.
+	 */
+	int classify(B board, M move);
+}
@@ -0,0 +1,16 @@
+package com.fathzer.chess.utils.model;
+
+/** A class that can create a board from a {@link PositionView}.
+ * <br>This optional interface can be implemented by {@link TestAdapter} instances to create the boards of a
+ * {@link com.fathzer.chess.utils.test.helper.perft.PackedPerftDataset PackedPerftDataset} directly from the packed data, without building and parsing a FEN.
+ * @param <B> the type of the board
+ */
+@FunctionalInterface
+public interface PackedBoardFactory<B extends IBoard<?>> {
+	/** Creates a board.
+	 * @param position the position
+	 * @param variant the variant
+	 * @return a new board
+	 */
+	B toBoard(PositionView position, Variant variant);
+}
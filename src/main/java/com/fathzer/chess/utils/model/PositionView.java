@@ -0,0 +1,97 @@
+package com.fathzer.chess.utils.model;
+
+/** A read only view of a chess position.
+ * <br>It gives access to the content of a position without any FEN parsing (see {@link PackedBoardFactory}).
+ */
+public interface PositionView {
+	/** Gets the piece on a square.
+	 * @param square a square index (0 is a1, 1 is b1, ..., 63 is h8)
+	 * @return the piece (expressed with {@link BoardPieceScanner} constants). A positive number is returned for white pieces, a negative number for black pieces.
+	 */
+	int getPiece(int square);
+
+	/** Tests whether white is to move.
+	 * @return true if white is to move
+	 */
+	boolean isWhiteToMove();
+
+	/** Gets the file of a castling rook.
+	 * @param white true for white castling, false for black castling
+	 * @param kingSide true for king side (the rook is on the right of the king), false for queen side
+	 * @return the file of the rook (0 for a, 7 for h) or a negative number if this castling is not allowed
+	 */
+	int getCastlingRookFile(boolean white, boolean kingSide);
+
+	/** Gets the file of the en passant square.
+	 * @return the file of the en passant square or a negative number if there is no en passant square
+	 */
+	int getEnPassantFile();
+
+	/** Gets the half move clock.
+	 * @return a positive or null int
+	 */
+	int getHalfMoveClock();
+
+	/** Gets the move number.
+	 * @return a positive int
+	 */
+	int getMoveNumber();
+
+	/** Gets the FEN representation of this position.
+	 * @param variant The variant. Castling rights are expressed with KQkq in standard chess, with the rook files (Shredder-FEN) in Chess960.
+	 * @return a FEN
+	 */
+	default String toFEN(Variant variant) {
+		final StringBuilder fen = new StringBuilder();
+		for (int rank = 7; rank >= 0; rank--) {
+			int empty = 0;
+			for (int file = 0; file < 8; file++) {
+				final int piece = getPiece(rank * 8 + file);
+				if (piece == BoardPieceScanner.NONE) {
+					empty++;
+				} else {
+					if (empty > 0) {
+						fen.append(empty);
+						empty = 0;
+					}
+					final char c = " PNBRQK".charAt(Math.abs(piece));
+					fen.append(piece > 0 ? c : Character.toLowerCase(c));
+				}
+			}
+			if (empty > 0) {
+				fen.append(empty);
+			}
+			if (rank > 0) {
+				fen.append('/');
+			}
+		}
+		fen.append(isWhiteToMove() ? " w " : " b ");
+		final int length = fen.length();
+		appendCastling(fen, variant, true, true, 'K');
+		appendCastling(fen, variant, true, false, 'Q');
+		appendCastling(fen, variant, false, true, 'k');
+		appendCastling(fen, variant, false, false, 'q');
+		if (fen.length() == length) {
+			fen.append('-');
+		}
+		final int ep = getEnPassantFile();
+		if (ep < 0) {
+			fen.append(" -");
+		} else {
+			fen.append(' ').append((char) ('a' + ep)).append(isWhiteToMove() ? '6' : '3');
+		}
+		return fen.append(' ').append(getHalfMoveClock()).append(' ').append(getMoveNumber()).toString();
+	}
+
+	private void appendCastling(StringBuilder fen, Variant variant, boolean white, boolean kingSide, char standard) {
+		final int file = getCastlingRookFile(white, kingSide);
+		if (file >= 0) {
+			if (variant == Variant.STANDARD) {
+				fen.append(standard);
+			} else {
+				final char c = (char) ('A' + file);
+				fen.append(white ? c : Character.toLowerCase(c));
+			}
+		}
+	}
+}
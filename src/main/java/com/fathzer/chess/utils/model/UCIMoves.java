@@ -0,0 +1,69 @@
+package com.fathzer.chess.utils.model;
+
+/** Utilities to represent <a href="https://www.chessprogramming.org/UCI">UCI</a> moves as int values.
+ * <br>A packed move contains the origin square in bits 0 to 5, the destination square in bits 6 to 11 (0 is a1, 1 is b1, ..., 63 is h8)
+ * and the promotion piece in bits 12 to 14 (expressed with {@link BoardPieceScanner} constants, {@link BoardPieceScanner#NONE} if the move is not a promotion).
+ * <br>Comparing packed moves is a lot faster than comparing UCI strings (see {@link IBoard#toPackedMove(Object)}).
+ */
+public final class UCIMoves {
+	private static final String PROMOTIONS = "  nbrq";
+
+	private UCIMoves() {
+		super();
+	}
+
+	/** Packs a move.
+	 * @param from the origin square (0 is a1, 1 is b1, ..., 63 is h8)
+	 * @param to the destination square
+	 * @param promotion the promotion piece ({@link BoardPieceScanner} constant, {@link BoardPieceScanner#NONE} if the move is not a promotion)
+	 * @return a packed move
+	 */
+	public static int pack(int from, int to, int promotion) {
+		return from | to << 6 | promotion << 12;
+	}
+
+	/** Packs a move expressed in UCI format.
+	 * @param uci a move in UCI format (for instance e2e4 or e7e8q)
+	 * @return a packed move
+	 * @throws IllegalArgumentException if the move is not a valid UCI move
+	 */
+	public static int pack(String uci) {
+		final int length = uci.length();
+		if (length < 4 || length > 5) {
+			throw new IllegalArgumentException("Invalid UCI move: " + uci);
+		}
+		final int promotion = length == 5 ? PROMOTIONS.indexOf(uci.charAt(4)) : BoardPieceScanner.NONE;
+		if (length == 5 && promotion < BoardPieceScanner.KNIGHT) {
+			throw new IllegalArgumentException("Invalid UCI move: " + uci);
+		}
+		return pack(square(uci, 0), square(uci, 2), promotion);
+	}
+
+	/** Converts a packed move to UCI format.
+	 * @param move a packed move
+	 * @return a move in UCI format
+	 */
+	public static String toUCI(int move) {
+		final StringBuilder result = new StringBuilder(5);
+		appendSquare(result, move & 0x3F);
+		appendSquare(result, (move >> 6) & 0x3F);
+		final int promotion = move >> 12;
+		if (promotion != BoardPieceScanner.NONE) {
+			result.append(PROMOTIONS.charAt(promotion));
+		}
+		return result.toString();
+	}
+
+	private static int square(String uci, int index) {
+		final int file = uci.charAt(index) - 'a';
+		final int rank = uci.charAt(index + 1) - '1';
+		if (file < 0 || file > 7 || rank < 0 || rank > 7) {
+			throw new IllegalArgumentException("Invalid UCI move: " + uci);
+		}
+		return rank * 8 + file;
+	}
+
+	private static void appendSquare(StringBuilder builder, int square) {
+		builder.append((char) ('a' + square % 8)).append((char) ('1' + square / 8));
+	}
+}
@@ -7,18 +7,35 @@ import com.fathzer.chess.utils.model.IBoard;
 import com.fathzer.chess.utils.model.TestAdapter;
 
 class AdapterLoader {
-	private static final String PROPERTY = "chess-test-utils.adapter";
+	static final String PROPERTY = "chess-test-utils.adapter";
+	static final String REFERENCE_PROPERTY = "chess-test-utils.referenceAdapter";
 	
+	private final String property;
+	private final boolean useServiceLoader;
 	private TestAdapter<?, ?> adapter;
 	private IllegalStateException serviceLoadingException;
 	
+	/** Creates a loader of the tested adapter. */
+	AdapterLoader() {
+		this(PROPERTY, true);
+	}
+	
+	/** Constructor.
+	 * @param property the system property that contains the adapter class name
+	 * @param useServiceLoader true to load the adapter from the service loader when the property is not set
+	 */
+	AdapterLoader(String property, boolean useServiceLoader) {
+		this.property = property;
+		this.useServiceLoader = useServiceLoader;
+	}
+	
 	private boolean loadFromSystemProperty() {
-        final String className = System.getProperty(PROPERTY);
+        final String className = System.getProperty(property);
         if (className != null) {
             try {
                 adapter = (TestAdapter<?, ?>) Class.forName(className).getDeclaredConstructor().newInstance();
             } catch (Exception e) {
-                serviceLoadingException = new IllegalStateException(String.format("Misconfiguration exception. Unable to load the adapter from the %s system property",PROPERTY), e);
+                serviceLoadingException = new IllegalStateException(String.format("Misconfiguration exception. Unable to load the adapter from the %s system property",property), e);
             }
         }
         return className != null;
@@ -34,7 +51,7 @@ class AdapterLoader {
 	
 	@SuppressWarnings("unchecked")
 	public <B extends IBoard<M>, M> TestAdapter<B, M> get() {
-		if (adapter == null && serviceLoadingException == null && !loadFromSystemProperty()) {
+		if (adapter == null && serviceLoadingException == null && !loadFromSystemProperty() && useServiceLoader) {
 			loadFromService();
 		}
 		if (serviceLoadingException != null) {
@@ -0,0 +1,386 @@
+package com.fathzer.chess.utils.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.fathzer.chess.utils.model.IBoard;
+import com.fathzer.chess.utils.model.UCIMoves;
+import com.fathzer.chess.utils.model.Variant;
+import com.fathzer.chess.utils.test.SANTest.SANConverter;
+import com.fathzer.chess.utils.test.helper.concurrent.Prefetcher;
+import com.fathzer.chess.utils.test.helper.concurrent.Threads;
+import com.fathzer.chess.utils.test.helper.pgn.PgnIndex;
+import com.fathzer.chess.utils.test.helper.pgn.PgnReader;
+
+/** A test class that replays the games of a <a href="https://www.chessprogramming.org/Portable_Game_Notation">PGN</a> file.
+ * <br>Every move of the main line of every game is searched among the legal moves of the board by comparing its SAN with the SAN returned by the
+ * {@link SANConverter}, then it is converted to UCI and played with {@link IBoard#toMove(String)} and {@link IBoard#makeMove(Object)}.
+ * So, a game database validates both the move generator and the SAN converter on millions of real positions.
+ * <br>The file is read by a {@link PgnReader} in a dedicated thread, and the games are replayed concurrently.
+ * The failing games and the replay speed are reported at the end of the test.
+ * <br>The following system properties change the behavior of the test:<ul>
+ * <li><code>gameReplayFile</code>: The path of the PGN file. The test is disabled if this property is not set.</li>
+ * <li><code>gameReplayThreads</code>: The number of threads that replay the games (default is the number of available processors).</li>
+ * <li><code>gameReplayMaxGames</code>: The maximum number of games to replay (default is all the games of the file).</li>
+ * <li><code>gameReplayIndex</code>: true to replay the games with a {@link PgnIndex} (created next to the file if it does not exist).
+ * Each thread then reads its own ranges of games, instead of sharing a single reader.</li>
+ * <li><code>gameReplayFirstGame</code>: The number of the first game to replay (the first game of the file is 1). The {@link PgnIndex} is used to jump
+ * to this game, so, for instance, <code>-DgameReplayFirstGame=1234567 -DgameReplayMaxGames=1</code> replays only a failing game reported by a previous run.</li>
+ * </ul>
+ * <br>Games with a FEN tag start from this position. Games with a Variant tag other than standard and Chess960 (for instance Crazyhouse), or in a variant
+ * not supported by the adapter, are skipped.
+ * @param <B> the type of the board
+ * @param <M> the type of the move
+ */
+@Requires(SANConverter.class)
+public class GameReplayTest<B extends IBoard<M>, M> extends AbstractAdaptableTest<B, M> {
+	private static final String FILE_PROPERTY = "gameReplayFile";
+	private static final String THREADS_PROPERTY = "gameReplayThreads";
+	private static final String MAX_GAMES_PROPERTY = "gameReplayMaxGames";
+	private static final String FIRST_GAME_PROPERTY = "gameReplayFirstGame";
+	private static final String INDEX_PROPERTY = "gameReplayIndex";
+	private static final int MAX_REPORTED_FAILURES = 20;
+
+	/** A game read from the PGN file.
+	 * @param number the number of the game in the file (the first game is 1)
+	 * @param line the line where the game starts
+	 * @param fen the start position, null for the standard start position
+	 * @param variant the variant tag, null if there is no variant tag
+	 * @param moves the SAN moves of the main line
+	 * @param error the error that occurred while parsing the game, null if the game is valid PGN
+	 */
+	record Game(long number, long line, String fen, String variant, List<String> moves, String error) {
+		Game(long number, long line, String fen, String variant, List<String> moves) {
+			this(number, line, fen, variant, moves, null);
+		}
+	}
+
+	/** The counters of a replay. */
+	private static class Stats {
+		private final LongAdder games = new LongAdder();
+		private final LongAdder skipped = new LongAdder();
+		private final LongAdder moves = new LongAdder();
+		private final LongAdder failed = new LongAdder();
+		private final Queue<String> failures = new ConcurrentLinkedQueue<>();
+	}
+
+	/** Gets the SAN converter to test.
+	 * @return a SAN converter
+	 */
+	@SuppressWarnings("unchecked")
+	protected SANConverter<B, M> getSANConverter() {
+		return (SANConverter<B, M>)adapter;
+	}
+
+	@Test
+	@Tag("GameReplayTest.replay")
+	@EnabledIfSystemProperty(named = FILE_PROPERTY, matches = ".+")
+	void replay() throws IOException {
+		final Path path = Path.of(System.getProperty(FILE_PROPERTY));
+		final int threads = Integer.getInteger(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors());
+		final long maxGames = Long.getLong(MAX_GAMES_PROPERTY, Long.MAX_VALUE);
+		final long firstGame = Long.getLong(FIRST_GAME_PROPERTY, 0);
+		final Stats stats = new Stats();
+		final long start = System.currentTimeMillis();
+		final ExecutorService executor = Executors.newFixedThreadPool(threads, Threads.daemonFactory("game-replay"));
+		try {
+			if (firstGame>0 || Boolean.getBoolean(INDEX_PROPERTY)) {
+				replayIndexed(path, Math.max(1, firstGame), maxGames, threads, executor, stats);
+			} else {
+				try (Stream<Game> stream = Prefetcher.prefetch(readGames(PgnReader.of(path), 1).limit(maxGames), 16*threads)) {
+					final Iterator<Game> iterator = stream.iterator();
+					run(executor, threads, () -> {
+						Game game;
+						while ((game = next(iterator))!=null) {
+							replay(game, stats);
+						}
+					});
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		final long elapsed = Math.max(1, System.currentTimeMillis()-start);
+		final long games = stats.games.sum();
+		final long failed = stats.failed.sum();
+		System.err.println(String.format(Locale.ROOT, "%s: %d games (%d skipped, %d failed), %d moves in %dms, %.0f games/s", FILE_PROPERTY, games,
+				stats.skipped.sum(), failed, stats.moves.sum(), elapsed, games*1000.0/elapsed));
+		assertEquals(0, failed, () -> failed+" games failed"+System.lineSeparator()+stats.failures.stream().collect(Collectors.joining(System.lineSeparator())));
+	}
+
+	/** Replays the games with a {@link PgnIndex}.
+	 * <br>The games are split in ranges of about the same size in bytes, and each thread reads its ranges directly in the file.
+	 */
+	private void replayIndexed(Path path, long firstGame, long maxGames, int threads, ExecutorService executor, Stats stats) throws IOException {
+		try (PgnIndex index = PgnIndex.open(path)) {
+			final long from = Math.min(firstGame-1, index.size());
+			final long to = from+Math.min(maxGames, index.size()-from);
+			System.err.println(String.format("%s: %d games indexed, replaying games %d to %d", INDEX_PROPERTY, index.size(), from+1, to));
+			// More ranges than threads, so that a thread that has slow games does not delay the end of the test
+			final Queue<PgnIndex.Range> ranges = new ConcurrentLinkedQueue<>(index.partition(from, to, 4*threads));
+			run(executor, threads, () -> {
+				PgnIndex.Range range;
+				while ((range = ranges.poll())!=null) {
+					try (Stream<Game> games = readGames(index.getReader(range.from(), range.to()), range.from()+1)) {
+						games.forEach(game -> replay(game, stats));
+					}
+				}
+			});
+		}
+	}
+
+	/** Runs a task in all the threads of an executor and waits for their end. */
+	private static void run(ExecutorService executor, int threads, Runnable task) {
+		final List<Future<?>> workers = new ArrayList<>(threads);
+		for (int i = 0; i < threads; i++) {
+			workers.add(executor.submit(task));
+		}
+		for (Future<?> worker : workers) {
+			Threads.get(worker);
+		}
+	}
+
+	/** Replays a game and records its result. */
+	private void replay(Game game, Stats stats) {
+		if (game.error()!=null) {
+			stats.games.increment();
+			fail(game, "Invalid PGN: "+game.error(), stats);
+			return;
+		}
+		final Variant variant = getVariant(game.variant());
+		if (variant==null || !isSupported(variant)) {
+			stats.skipped.increment();
+			return;
+		}
+		final String error = replay(game, variant);
+		stats.games.increment();
+		stats.moves.add(game.moves().size());
+		if (error!=null) {
+			fail(game, error, stats);
+		}
+	}
+
+	private static void fail(Game game, String error, Stats stats) {
+		stats.failed.increment();
+		if (stats.failures.size()<MAX_REPORTED_FAILURES) {
+			stats.failures.add(String.format("Game %d (line %d): %s", game.number(), game.line(), error));
+		}
+	}
+
+	/** Replays a game.
+	 * @param game the game
+	 * @param variant its variant
+	 * @return an error message, or null if the game was successfully replayed
+	 */
+	private String replay(Game game, Variant variant) {
+		final SANConverter<B, M> converter = getSANConverter();
+		final B board;
+		try {
+			board = adapter.fenToBoard(game.fen()==null ? STANDARD_START_FEN : game.fen(), variant);
+		} catch (RuntimeException e) {
+			return "Can't create the start position "+game.fen()+": "+e;
+		}
+		for (int ply = 0; ply < game.moves().size(); ply++) {
+			final String san = game.moves().get(ply);
+			final String moveName = san+" (ply "+(ply+1)+")";
+			try {
+				final List<M> candidates = getCandidates(board, converter, san);
+				if (candidates.size()!=1) {
+					return candidates.isEmpty() ? "No legal move has the SAN "+moveName :
+						"Several moves have the SAN "+moveName+": "+candidates.stream().map(board::toUCI).toList();
+				}
+				final String uci = board.toUCI(candidates.get(0));
+				if (!board.makeMove(board.toMove(uci))) {
+					return moveName+" ("+uci+") can't be played";
+				}
+			} catch (RuntimeException e) {
+				return moveName+" failed with "+e;
+			}
+		}
+		return null;
+	}
+
+	/** Gets the legal moves whose SAN is a given SAN.
+	 * <br>To limit the calls to the converter, only the moves that go to the destination square of the SAN are converted (castlings, and moves with no
+	 * {@link IBoard#toPackedMove(Object) packed representation}, are always converted).
+	 */
+	private List<M> getCandidates(B board, SANConverter<B, M> converter, String san) {
+		final int destination = getDestination(san);
+		final List<M> result = new ArrayList<>(1);
+		for (M move : board.getMoves()) {
+			if (isCandidate(board.toPackedMove(move), destination) && board.isLegal(move) && san.equals(converter.getSAN(board, move))) {
+				result.add(move);
+			}
+		}
+		return result;
+	}
+
+	private static boolean isCandidate(int packedMove, int destination) {
+		return destination<0 || packedMove<0 || ((packedMove>>6) & 0x3F)==destination;
+	}
+
+	/** Gets the destination square of a SAN move.
+	 * @param san a move in SAN
+	 * @return the index of the square (see {@link UCIMoves}), or -1 if the move is a castling
+	 */
+	static int getDestination(String san) {
+		for (int i = san.length()-2; i >= 0; i--) {
+			final char file = san.charAt(i);
+			final char rank = san.charAt(i+1);
+			if (file>='a' && file<='h' && rank>='1' && rank<='8') {
+				return (rank-'1')*8+(file-'a');
+			}
+		}
+		return -1;
+	}
+
+	/** Gets the variant of a Variant tag.
+	 * @param tag the value of the Variant tag, or null
+	 * @return the variant, or null if it is neither standard chess nor Chess960
+	 */
+	static Variant getVariant(String tag) {
+		if (tag==null || tag.isBlank() || tag.equalsIgnoreCase("standard") || tag.equalsIgnoreCase("from position")) {
+			return Variant.STANDARD;
+		}
+		final String lower = tag.toLowerCase(Locale.ROOT);
+		return lower.contains("960") || lower.contains("fischer") ? Variant.CHESS960 : null;
+	}
+
+	/** Reads the games of a PGN file.
+	 * <br>Only the main lines of the games are kept.
+	 * <br>A game that is not valid PGN is returned with its {@link Game#error() error}, then the reading resumes at the next line that starts with a tag pair.
+	 * @param reader the PGN reader
+	 * @param firstNumber the number of the first game read
+	 */
+	static Stream<Game> readGames(PgnReader reader, long firstNumber) {
+		final Iterator<Game> iterator = new Iterator<>() {
+			private final GameCollector collector = new GameCollector(firstNumber);
+			private Game next;
+
+			@Override
+			public boolean hasNext() {
+				if (next==null) {
+					try {
+						next = read();
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}
+				return next!=null;
+			}
+
+			private Game read() throws IOException {
+				try {
+					return reader.readGame(collector) ? collector.get() : null;
+				} catch (IllegalArgumentException e) {
+					final Game failed = collector.getFailed(reader.getLine(), e.getMessage());
+					reader.skipGame();
+					return failed;
+				}
+			}
+
+			@Override
+			public Game next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				final Game result = next;
+				next = null;
+				return result;
+			}
+		};
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(() -> {
+			try {
+				reader.close();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
+	/** A {@link PgnReader.Handler} that builds {@link Game} instances. */
+	private static class GameCollector implements PgnReader.Handler {
+		private long number;
+		private long line;
+		private String fen;
+		private String variant;
+		private List<String> moves;
+		private boolean started;
+
+		private GameCollector(long firstNumber) {
+			this.number = firstNumber-1;
+		}
+
+		@Override
+		public void startGame(long line) {
+			this.number++;
+			this.started = true;
+			this.line = line;
+			this.fen = null;
+			this.variant = null;
+			this.moves = new ArrayList<>(100);
+		}
+
+		@Override
+		public void tag(CharSequence name, CharSequence value) {
+			if ("FEN".contentEquals(name)) {
+				fen = value.toString();
+			} else if ("Variant".contentEquals(name)) {
+				variant = value.toString();
+			}
+		}
+
+		@Override
+		public void move(CharSequence san, int depth) {
+			if (depth==0) {
+				moves.add(san.toString());
+			}
+		}
+
+		private Game get() {
+			started = false;
+			return new Game(number, line, fen, variant, moves);
+		}
+
+		/** Gets a game that can't be parsed.
+		 * @param errorLine the line of the error, used as the line of the game if the error occurred before its start
+		 * @param error the error
+		 */
+		private Game getFailed(long errorLine, String error) {
+			if (!started) {
+				startGame(errorLine);
+			}
+			started = false;
+			return new Game(number, line, fen, variant, moves, error);
+		}
+	}
+
+	private static <T> T next(Iterator<T> iterator) {
+		synchronized (iterator) {
+			return iterator.hasNext() ? iterator.next() : null;
+		}
+	}
+}
@@ -2,6 +2,9 @@ package com.fathzer.chess.utils.test;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -10,6 +13,7 @@ import java.util.stream.Collectors;
 
 import com.fathzer.chess.utils.model.IBoard;
 import com.fathzer.chess.utils.model.Variant;
+import com.fathzer.chess.utils.test.helper.pgn.PgnReader;
 
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
@@ -188,14 +192,49 @@ public class PGNTest<B extends IBoard<M>, M> extends AbstractAdaptableTest<B, M>
 		protected record Content(Map<String, String> tagPairs, List<String> moves) {}
 	 
 		/** Parses a PGN string into a Content record.
+		 * <br>The layout of the PGN (tag pairs, one empty line, then the move text) is checked line by line, then its content is read by a {@link PgnReader}.
+		 * Comments, variations and NAGs are allowed, only the moves of the main line are returned.
 		 * @param pgn the PGN string to parse
 		 * @return a Content record with the parsed data
 		 * @throws IllegalArgumentException if the PGN string is not valid
 		 */
 		protected Content parse(String pgn) {
-			final String[] lines = pgn.split("\n");
+			checkLayout(pgn);
 			final Map<String, String> tagPairs = new LinkedHashMap<>();
 			final List<String> moves = new ArrayList<>();
+			final PgnReader.Handler handler = new PgnReader.Handler() {
+				@Override
+				public void tag(CharSequence name, CharSequence value) {
+					tagPairs.put(name.toString(), value.toString());
+				}
+
+				@Override
+				public void move(CharSequence san, int depth) {
+					if (depth == 0) {
+						moves.add(san.toString());
+					}
+				}
+			};
+			try (PgnReader reader = new PgnReader(new StringReader(pgn))) {
+				if (reader.readGame(handler) && reader.readGame(handler)) {
+					throw new IllegalArgumentException("PGN contains more than one game");
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return new Content(tagPairs, moves);
+		}
+
+		/** Checks the layout of the lines of a PGN string.
+		 * @param pgn the PGN string to check
+		 * @throws IllegalArgumentException if the layout is not valid
+		 */
+		private void checkLayout(String pgn) {
+			final List<String> lines = new ArrayList<>(pgn.lines().toList());
+			// Trailing empty lines are allowed
+			while (!lines.isEmpty() && lines.get(lines.size() - 1).isEmpty()) {
+				lines.remove(lines.size() - 1);
+			}
 			boolean emptySeparatorLineFound = false;
 			for (String line : lines) {
 				// Check that no lines are bigger that 80 chars
@@ -204,14 +243,11 @@ public class PGNTest<B extends IBoard<M>, M> extends AbstractAdaptableTest<B, M>
 					if (emptySeparatorLineFound) {
 						throw new IllegalArgumentException("There is a 'tag pairs - move list' separator empty line in the tag pairs section");
 					}
-					parseTagPair(tagPairs, line);
-					emptySeparatorLineFound = false;
 				} else if (!line.isEmpty()) {
 					// A move line
 					if (!emptySeparatorLineFound) {
 						throw new IllegalArgumentException("'tag pairs - move list' separator empty line is missing");
 					}
-					parseMoves(moves, line.split(" "));
 				} else {
 					if (emptySeparatorLineFound) {
 						throw new IllegalArgumentException("There are more than one 'tag pairs - move list' separator empty lines");
@@ -219,34 +255,6 @@ public class PGNTest<B extends IBoard<M>, M> extends AbstractAdaptableTest<B, M>
 					emptySeparatorLineFound = true;
 				}
 			}
-			return new Content(tagPairs, moves);
-		}
-	
-		/** Parses a partial moves list and add them to a given list.
-		 * @param moves the list to fill
-		 * @param tokens the tokens to parse
-		 */
-		private void parseMoves(List<String> moves, String[] tokens) {
-			for (String token : tokens) {
-				if (!token.isEmpty() && !token.endsWith(".")) {
-					moves.add(token);
-				}
-			}
-		}
-
-		private void parseTagPair(Map<String, String> tagPairs, String line) {
-			line = line.substring(1, line.length() - 1);
-			final int index = line.indexOf(' ');
-			if (index == -1 || index == line.length() - 1) {
-				// There's only one word in the tag
-				throw new IllegalArgumentException("Invalid tag: " + line);
-			}
-			final String name = line.substring(0, index);
-			final String value = line.substring(index + 1);
-			if (name.isBlank() || value.isBlank() || value.charAt(0) != '"' || value.charAt(value.length() - 1) != '"') {
-				throw new IllegalArgumentException("Invalid tag: " + line);
-			}
-			tagPairs.put(name, value.substring(1, value.length() - 1));
 		}
 	
 		/** Asserts that the FEN tag value is correct
@@ -0,0 +1,179 @@
+package com.fathzer.chess.utils.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.fathzer.chess.utils.model.IBoard;
+import com.fathzer.chess.utils.model.Variant;
+import com.fathzer.chess.utils.test.helper.perft.PerfT;
+
+/** A performance regression test based on <a href="https://www.chessprogramming.org/Perft">Perft</a>.
+ * <br>It runs a fixed perft workload and compares the number of leaves per second (NPS) with a baseline stored in a properties file
+ * of the test resources (by default <code>/perft-baseline.properties</code>, see {@link #getBaselineResource()}).
+ * This file contains the baseline NPS in its <code>nps</code> key, and optionally the tolerance, in percent, in its <code>tolerance</code> key.
+ * <br>The workload is run a few times to warm up the JVM, then it is run several times and the median NPS is compared with the baseline.
+ * <br>The following system properties change the behavior of the test:<ul>
+ * <li><code>perftBenchmarkTolerance</code>: The tolerated slow down, in percent (overrides the baseline's tolerance, default is 10).</li>
+ * <li><code>perftBenchmarkMode</code>: <code>fail</code> (the default) to fail when the NPS drops beyond the tolerance, <code>warn</code> to only print a warning.</li>
+ * <li><code>perftBenchmarkWarmup</code>: The number of warm up runs (default is 2).</li>
+ * <li><code>perftBenchmarkRuns</code>: The number of measured runs (default is 5).</li>
+ * <li><code>perftBenchmarkBaselineOutput</code>: A file path where to write the measured NPS as a new baseline.</li>
+ * </ul>
+ * <br>If no baseline is found, the test only prints the measured NPS.
+ * <br>This class is abstract, subclass it in your project (usually without adding anything) to use it.
+ * @param <B> the type of the board
+ * @param <M> the type of the move
+ */
+public abstract class PerftBenchmarkTest<B extends IBoard<M>, M> extends AbstractAdaptableTest<B, M> {
+	/** A position of the benchmark workload.
+	 * @param fen the FEN of a standard chess position
+	 * @param depth the perft depth
+	 * @param expectedLeaves the expected number of leaves
+	 */
+	public record Position(String fen, int depth, long expectedLeaves) {}
+
+	/** The default workload, made of some positions of <a href="https://www.chessprogramming.org/Perft_Results">Perft results</a>. */
+	protected static final List<Position> DEFAULT_WORKLOAD = List.of(
+			new Position(STANDARD_START_FEN, 4, 197281),
+			new Position("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", 3, 97862),
+			new Position("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 5, 674624),
+			new Position("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", 4, 422333),
+			new Position("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", 3, 62379));
+
+	private static final String NPS_KEY = "nps";
+	private static final String TOLERANCE_KEY = "tolerance";
+	private static final String TOLERANCE_PROPERTY = "perftBenchmarkTolerance";
+	private static final String MODE_PROPERTY = "perftBenchmarkMode";
+	private static final String WARMUP_PROPERTY = "perftBenchmarkWarmup";
+	private static final String RUNS_PROPERTY = "perftBenchmarkRuns";
+	private static final String OUTPUT_PROPERTY = "perftBenchmarkBaselineOutput";
+
+	@Test
+	@Tag("PerftBenchmarkTest.benchmark")
+	void benchmark() throws IOException {
+		final List<Position> workload = getWorkload();
+		for (int i = 0; i < Integer.getInteger(WARMUP_PROPERTY, 2); i++) {
+			run(workload);
+		}
+		final long[] nps = new long[Math.max(1, Integer.getInteger(RUNS_PROPERTY, 5))];
+		for (int i = 0; i < nps.length; i++) {
+			nps[i] = run(workload);
+		}
+		final long median = median(nps);
+		System.err.println(String.format("Perft benchmark: %d leaves/s (runs: %s)", median, Arrays.toString(nps)));
+		final String output = System.getProperty(OUTPUT_PROPERTY);
+		if (output != null) {
+			writeBaseline(Path.of(output), median);
+		}
+		final Properties baseline = readBaseline();
+		if (baseline == null) {
+			System.err.println("No perft benchmark baseline found in "+getBaselineResource());
+			return;
+		}
+		final double tolerance = Double.parseDouble(System.getProperty(TOLERANCE_PROPERTY, baseline.getProperty(TOLERANCE_KEY, "10")));
+		final String regression = getRegression(median, Long.parseLong(baseline.getProperty(NPS_KEY).trim()), tolerance);
+		if (regression != null) {
+			if ("warn".equalsIgnoreCase(System.getProperty(MODE_PROPERTY, "fail"))) {
+				System.err.println("WARNING: "+regression);
+			} else {
+				fail(regression);
+			}
+		}
+	}
+
+	/** Gets the workload of the benchmark.
+	 * <br>The default implementation returns {@link #DEFAULT_WORKLOAD}.
+	 * @return a list of positions
+	 */
+	protected List<Position> getWorkload() {
+		return DEFAULT_WORKLOAD;
+	}
+
+	/** Gets the {@link PerfT} used to run the workload.
+	 * <br>The default implementation returns a new PerfT with default settings. Override it to benchmark another configuration.
+	 * @return a PerfT instance
+	 */
+	protected PerfT<M> getPerfT() {
+		return new PerfT<>();
+	}
+
+	/** Gets the class path resource that contains the baseline.
+	 * @return a resource name, default is <code>/perft-baseline.properties</code>
+	 */
+	protected String getBaselineResource() {
+		return "/perft-baseline.properties";
+	}
+
+	private Properties readBaseline() throws IOException {
+		try (InputStream in = getClass().getResourceAsStream(getBaselineResource())) {
+			if (in == null) {
+				return null;
+			}
+			final Properties properties = new Properties();
+			properties.load(in);
+			return properties;
+		}
+	}
+
+	private void writeBaseline(Path path, long nps) throws IOException {
+		final Properties properties = new Properties();
+		properties.setProperty(NPS_KEY, Long.toString(nps));
+		try (OutputStream out = Files.newOutputStream(path)) {
+			properties.store(out, "Perft benchmark baseline of "+adapter.getClass().getName());
+		}
+	}
+
+	/** Runs the workload once.
+	 * @return the number of leaves per second
+	 */
+	private long run(List<Position> workload) {
+		final PerfT<M> perfT = getPerfT();
+		final List<B> boards = workload.stream().map(p -> adapter.fenToBoard(p.fen(), Variant.STANDARD)).toList();
+		long leaves = 0;
+		final long start = System.nanoTime();
+		for (int i = 0; i < workload.size(); i++) {
+			final Position position = workload.get(i);
+			final long count = perfT.divide(boards.get(i), position.depth()).getNbLeaves();
+			assertEquals(position.expectedLeaves(), count, () -> String.format("Fen: %s, Depth: %d", position.fen(), position.depth()));
+			leaves += count;
+		}
+		return (long) (leaves * 1_000_000_000.0 / Math.max(1, System.nanoTime() - start));
+	}
+
+	/** Gets the median of some values.
+	 * @param values some values (this array is sorted by this method)
+	 * @return the median value
+	 */
+	static long median(long[] values) {
+		Arrays.sort(values);
+		final int middle = values.length / 2;
+		return values.length % 2 == 1 ? values[middle] : (values[middle - 1] + values[middle]) / 2;
+	}
+
+	/** Compares a NPS with its baseline.
+	 * @param nps The measured NPS
+	 * @param baseline The baseline NPS
+	 * @param tolerance The tolerated slow down in percent
+	 * @return a message describing the regression or null if nps is within the tolerance
+	 */
+	static String getRegression(long nps, long baseline, double tolerance) {
+		final double min = baseline * (1 - tolerance / 100);
+		if (nps >= min) {
+			return null;
+		}
+		return String.format(Locale.ROOT, "Perft NPS dropped by %.1f%%: %d leaves/s, baseline is %d leaves/s (tolerance is %.1f%%)",
+				100.0 * (baseline - nps) / baseline, nps, baseline, tolerance);
+	}
+}
@@ -2,64 +2,633 @@ package com.fathzer.chess.utils.test;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DynamicTest;
 import org.junit.jupiter.api.Tag;
-import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.TestInfo;
 import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
 
 import com.fathzer.chess.utils.model.IBoard;
+import com.fathzer.chess.utils.model.MoveClassifier;
+import com.fathzer.chess.utils.model.TestAdapter;
 import com.fathzer.chess.utils.model.Variant;
+import com.fathzer.chess.utils.test.helper.concurrent.Prefetcher;
+import com.fathzer.chess.utils.test.helper.concurrent.Threads;
+import com.fathzer.chess.utils.test.helper.perft.DepthScheduler;
+import com.fathzer.chess.utils.test.helper.perft.DivideStore;
+import com.fathzer.chess.utils.test.helper.perft.EpdReader;
+import com.fathzer.chess.utils.test.helper.perft.PackedPerftDataset;
+import com.fathzer.chess.utils.test.helper.perft.PackedPosition;
 import com.fathzer.chess.utils.test.helper.perft.PerfT;
+import com.fathzer.chess.utils.test.helper.perft.PerftBisector;
+import com.fathzer.chess.utils.test.helper.perft.PerftCache;
+import com.fathzer.chess.utils.test.helper.perft.PerftCheckpoint;
+import com.fathzer.chess.utils.test.helper.perft.PerftReport;
+import com.fathzer.chess.utils.test.helper.perft.Shard;
+import com.fathzer.chess.utils.test.helper.perft.TranspositionTable;
 
-import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+import java.util.stream.IntStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /** 
  * A test class based on [Perft](https://www.chessprogramming.org/Perft).
- * <br>This class uses the data set available in [jchess-perft-dataset](https://github.com/fathzer-games/jchess-perft-dataset).
+ * <br>This class uses the data set available in [jchess-perft-dataset](https://github.com/fathzer-games/jchess-perft-dataset), and the
+ * {@link com.fathzer.chess.utils.test.helper.fen.Chess960StartPositions 960 start positions} of Chess960, whose leaf counts are known up to depth 5
+ * (the position with Scharnagl number <i>n</i> is at line <i>n+1</i>). The depth of these start positions is set by the <code>perftChess960StartDepth</code> system property
+ * (default is 2).
+ * <br>Each suite is a {@link TestFactory} that returns a dynamic test per position, so every failing position is reported.
+ * <br>If the <code>perftHashSize</code> system property is set to a positive number of MB, and the adapter's boards implement {@link com.fathzer.chess.utils.model.HashableBoard HashableBoard},
+ * a {@link TranspositionTable} of this size is shared by all the positions of a suite.
+ * <br>If the adapter implements {@link MoveClassifier}, the {@link com.fathzer.chess.utils.test.helper.perft.Statistics statistics} of the failed positions
+ * are added to the failure message.
+ * <br>If the <code>chess-test-utils.referenceAdapter</code> system property contains the class name of another adapter, a {@link PerftBisector}
+ * compares the failed positions with this reference adapter and the faulty position is added to the failure message.
+ * <br>If the <code>perftTimeBudget</code> (or <code>perftChess960TimeBudget</code>, <code>perftChess960StartTimeBudget</code>) system property is set to a duration (for instance <code>120s</code>, <code>10m</code>
+ * or <code>1h</code>), the depth properties are ignored and each position is tested at the deepest depth that fits in the budget (see {@link DepthScheduler}).
+ * The speed of the adapter is measured by a first run of all positions at depth 2, when the suite is created.
+ * <br>If the <code>perftReport</code> system property is set to a file path, a {@link PerftReport} with the duration and NPS of every tested position
+ * is written to this file (in CSV format if its name ends with <code>.csv</code>, in JSON format otherwise). The file is rewritten after all the tests of the class are run and contains
+ * the positions of all the suites run so far.
+ * <br>By default, each position is computed by the JUnit thread that executes its test, when the test is executed. So, a single position can be rerun without
+ * computing the others, and the tests are {@link Execution concurrent}: they are run in parallel if JUnit's
+ * <a href="https://junit.org/junit5/docs/current/user-guide/#writing-tests-parallel-execution">parallel execution</a> is enabled
+ * (set <code>junit.jupiter.execution.parallel.enabled</code> to true).
+ * <br>If the <code>perftThreads</code> system property (see {@link #getThreads()}) is set to a positive number, the positions are computed by a dedicated pool of
+ * platform threads (see {@link #getExecutor(int)}), one position per thread, instead of the JUnit threads. This makes the timings reproducible and avoids competing
+ * with the common pool. Please note that the positions are then submitted to the pool ahead of their tests, so all the positions of a suite are computed
+ * even if only one of its tests is run.
+ * <br>If the <code>perftCheckpoint</code> system property is set to a file path, the leaf count of every root move is recorded in a {@link PerftCheckpoint}
+ * stored in this file. If the tests are interrupted, they can be restarted with the same file, and the root moves already searched are not searched again.
+ * Please note that the resumed positions are not added to the report, as their duration is unknown.
+ * <br>If the <code>perftCache</code> system property is set to a file path, the leaf counts of the root moves are stored in a {@link PerftCache} of
+ * <code>perftCacheSize</code> MB (default is 64) stored in this file and shared by all the test classes. The next runs do not search the cached moves again, until the
+ * {@link #getCacheFingerprint() fingerprint} of the move generator changes. As with checkpoints, the cached positions are not added to the report.
+ * <br>If the <code>perftShard</code> system property is set to <i>index/count</i> (for instance <code>3/16</code>), only the positions of this {@link Shard}
+ * are tested. Positions are assigned to the shards according to their expected number of leaves. The reports of all the shards can be merged
+ * with {@link PerftReport#merge(java.util.Collection)}.
+ * <br>If the <code>perftEpdFile</code> system property is set to the path of an EPD file (in the {@link EpdReader} format), an additional suite tests its positions
+ * in the variant of the <code>perftEpdVariant</code> system property (default is STANDARD), at the depth of the <code>perftEpdDepth</code> property (default is 2)
+ * or within the budget of the <code>perftEpdTimeBudget</code> property.
+ * When positions are computed by a dedicated pool of threads, the EPD files are read and parsed ahead by another thread, through a bounded queue (see {@link Prefetcher}).
+ * So, slow storage (for instance a network file system) does not leave the computing threads idle.
+ * <br>If the <code>perftPackedFile</code> system property is set to the path of a {@link PackedPerftDataset}, an additional suite tests its positions
+ * at the depth of the <code>perftPackedDepth</code> property (default is 2). The positions whose count is unknown at this depth are ignored.
+ * This binary format is a lot faster to read than EPD files, and the boards are created without FEN parsing if the adapter implements
+ * {@link com.fathzer.chess.utils.model.PackedBoardFactory PackedBoardFactory}. The tests are named after the position indexes, the first one is 1.
  * @param <B> the type of the board
  * @param <M> the type of the move
  */
+@Execution(ExecutionMode.CONCURRENT)
 public class PerftTest<B extends IBoard<M>, M> extends AbstractAdaptableTest<B, M> {
-    @Test
+	private static final AdapterLoader REFERENCE_LOADER = new AdapterLoader(AdapterLoader.REFERENCE_PROPERTY, false);
+	private static final String REPORT_PROPERTY = "perftReport";
+	private static final String SHARD_PROPERTY = "perftShard";
+	private static final String THREADS_PROPERTY = "perftThreads";
+	private static final String CHECKPOINT_PROPERTY = "perftCheckpoint";
+	private static final String CACHE_PROPERTY = "perftCache";
+	private static final String CACHE_SIZE_PROPERTY = "perftCacheSize";
+	private static final String EPD_FILE_PROPERTY = "perftEpdFile";
+	private static final String PACKED_FILE_PROPERTY = "perftPackedFile";
+	private static final String CLASSPATH_SCHEME = "classpath";
+
+	/** A position to test at a depth.
+	 * @param packed the packed position of the entry, or null if it was read from an EPD file.
+	 * The FEN of the entry of a packed position is null, it is built only when needed (see {@link #getFen(Variant)}).
+	 */
+	private record Task(EpdReader.Entry entry, int depth, PackedPosition packed) {
+		private Task(EpdReader.Entry entry, int depth) {
+			this(entry, depth, null);
+		}
+
+		private String getFen(Variant variant) {
+			return packed==null ? entry.fen() : packed.toFEN(variant);
+		}
+	}
+
+	private static PerftReport sharedReport;
+	private static PerftCheckpoint sharedCheckpoint;
+	private static PerftCache sharedCache;
+	/** The executors of the test classes, guarded by the PerftTest class. */
+	private static final Map<Class<?>, ExecutorService> sharedExecutors = new HashMap<>();
+
+	private PerftReport report;
+	private PerftCheckpoint checkpoint;
+	private PerftCache cache;
+
+    @TestFactory
     @Tag("PerftTest.standardSuite")
     @DisabledIfSystemProperty(named="perftDepth", matches = "0")
-    void standardSuite() throws IOException {
-       	doTestSuite("perftDepth", 2, readTests("/com/fathzer/jchess/perft/Perft.epd"), Variant.STANDARD);
+    Stream<DynamicTest> standardSuite() throws IOException {
+       	return getTestSuite("perftDepth", "perftTimeBudget", 2, toURI("/com/fathzer/jchess/perft/Perft.epd"), Variant.STANDARD);
     }
 
-	@Test
+	@TestFactory
     @Tag("PerftTest.chess960Suite")
 	@IfVariantSupported(Variant.CHESS960)
     @DisabledIfSystemProperty(named="perftChess960Depth", matches = "0")
-    void chess960Suite() throws IOException {
-		doTestSuite("perftChess960Depth", 2, readTests("/com/fathzer/jchess/perft/Perft960.epd"), Variant.CHESS960);
+    Stream<DynamicTest> chess960Suite() throws IOException {
+		return getTestSuite("perftChess960Depth", "perftChess960TimeBudget", 2, toURI("/com/fathzer/jchess/perft/Perft960.epd"), Variant.CHESS960);
+    }
+
+	@TestFactory
+    @Tag("PerftTest.chess960StartPositions")
+	@IfVariantSupported(Variant.CHESS960)
+    @DisabledIfSystemProperty(named="perftChess960StartDepth", matches = "0")
+    Stream<DynamicTest> chess960StartPositions() throws IOException {
+		return getTestSuite("perftChess960StartDepth", "perftChess960StartTimeBudget", 2, toURI("/com/fathzer/chess/utils/test/Chess960StartPositions.epd"), Variant.CHESS960);
+    }
+
+	@TestFactory
+    @Tag("PerftTest.externalSuite")
+    @EnabledIfSystemProperty(named=EPD_FILE_PROPERTY, matches = ".+")
+    @DisabledIfSystemProperty(named="perftEpdDepth", matches = "0")
+    Stream<DynamicTest> externalSuite() throws IOException {
+		final Variant variant = Variant.valueOf(System.getProperty("perftEpdVariant", Variant.STANDARD.name()));
+		return getTestSuite("perftEpdDepth", "perftEpdTimeBudget", 2, Path.of(System.getProperty(EPD_FILE_PROPERTY)).toUri(), variant);
     }
-	
-	private List<String> readTests(String resource) throws IOException {
-    	try (BufferedReader stream = new BufferedReader(new InputStreamReader(getClass().getResourceAsStream(resource), StandardCharsets.UTF_8))) {
-        	return stream.lines().toList();
-    	}
+
+	@TestFactory
+    @Tag("PerftTest.packedSuite")
+    @EnabledIfSystemProperty(named=PACKED_FILE_PROPERTY, matches = ".+")
+    @DisabledIfSystemProperty(named="perftPackedDepth", matches = "0")
+    Stream<DynamicTest> packedSuite() throws IOException {
+		final Path path = Path.of(System.getProperty(PACKED_FILE_PROPERTY));
+		final PackedPerftDataset dataset = PackedPerftDataset.open(path);
+		try {
+			return getTestSuite("perftPackedDepth", 2, dataset, path.toUri());
+		} catch (IOException | RuntimeException e) {
+			dataset.close();
+			throw e;
+		}
+    }
+
+	@AfterAll
+	static void shutdownExecutor(TestInfo info) {
+		final ExecutorService executor;
+		synchronized (PerftTest.class) {
+			executor = sharedExecutors.remove(info.getTestClass().orElseThrow());
+		}
+		if (executor!=null) {
+			executor.shutdownNow();
+		}
 	}
 
-    private void doTestSuite(String depthProperty, int defaultDepth, List<String> tests, Variant variant) {
-		final int depth = Integer.getInteger(depthProperty, defaultDepth);
-        if (depth!=defaultDepth) {
-        	System.err.println(depthProperty+": "+depth+", "+tests.size()+" lines");
+	@AfterAll
+	static void writeReport() {
+		final String reportPath = System.getProperty(REPORT_PROPERTY);
+		synchronized (PerftTest.class) {
+			if (reportPath!=null && sharedReport!=null) {
+				sharedReport.write(Path.of(reportPath));
+			}
+		}
+	}
+
+    private Stream<DynamicTest> getTestSuite(String depthProperty, String budgetProperty, int defaultDepth, URI source, Variant variant) throws IOException {
+        final PerfT<M> perfT = newPerfT();
+        final String budget = System.getProperty(budgetProperty);
+        final int depth = budget==null ? Integer.getInteger(depthProperty, defaultDepth) : Integer.MAX_VALUE;
+        final LongPredicate lines = getShardFilter(source, depth);
+        final int threads = getThreads();
+        final ExecutorService executor = threads>0 ? getSharedExecutor(threads) : null;
+        final Stream<Task> tasks;
+        if (budget!=null) {
+        	try (EpdReader reader = open(source)) {
+        		tasks = getBudgetedTasks(perfT, budgetProperty, toMillis(budget), defaultDepth, reader, lines, variant, executor);
+        	}
+        } else {
+        	final Stream<Task> read = getTasks(depthProperty, defaultDepth, open(source), lines);
+        	// Read the file in another thread to not delay the submission of the tasks to the executor
+        	tasks = executor==null ? read : Prefetcher.prefetch(read, 4*threads);
         }
-        final PerfT<M> perfT = new PerfT<>();
-        tests.stream().parallel().forEach(line -> {
-            String[] parts = line.split(";");
-            String fen = parts[0];
-            if (parts.length<=depth) {
-            	return;
-            }
-            final IBoard<M> board = adapter.fenToBoard(fen, variant);
-            final PerfT.Result<M> result = perfT.divide(board, depth);
-            long expectedTotalMoves = Long.parseLong(parts[depth].split(" ")[1].trim());
-            assertEquals(expectedTotalMoves, result.getNbLeaves(), String.format("Fen: %s, Depth: %s, Expected: %s, Actual: %s", fen, depth, expectedTotalMoves, result.getNbLeaves()));
+        return toTests(perfT, tasks, source, variant, threads, executor);
+	}
+
+    /** Gets the suite of a packed dataset.
+     * <br>The dataset is closed when JUnit closes the returned stream.
+     */
+    private Stream<DynamicTest> getTestSuite(String depthProperty, int defaultDepth, PackedPerftDataset dataset, URI source) throws IOException {
+        final PerfT<M> perfT = newPerfT();
+        final int depth = Integer.getInteger(depthProperty, defaultDepth);
+        final Variant variant = dataset.getVariant();
+        final LongPredicate numbers = getShardFilter(dataset, depth);
+        final LongAdder count = new LongAdder();
+        final Stream<Task> tasks = LongStream.range(0, dataset.size()).filter(i -> dataset.get(i).getCount(depth)>=0 && numbers.test(i+1)).mapToObj(i -> {
+        	count.increment();
+        	final PackedPosition position = dataset.get(i);
+        	final long[] counts = IntStream.rangeClosed(0, depth).mapToLong(position::getCount).toArray();
+        	return new Task(new EpdReader.Entry(i+1, null, counts), depth, position);
+        }).onClose(() -> {
+        	System.err.println(String.format("%s: %d, %d positions", depthProperty, depth, count.sum()));
+        	try {
+        		dataset.close();
+        	} catch (IOException e) {
+        		throw new UncheckedIOException(e);
+        	}
         });
+        final int threads = getThreads();
+        return toTests(perfT, tasks, source, variant, threads, threads>0 ? getSharedExecutor(threads) : null);
+	}
+
+    /** Creates the PerfT of a suite and the shared resources used by its tests. */
+    private PerfT<M> newPerfT() throws IOException {
+        final PerfT<M> perfT = new PerfT<>();
+        final int hashSize = Integer.getInteger("perftHashSize", 0);
+        if (hashSize>0) {
+        	perfT.withTranspositionTable(new TranspositionTable(hashSize));
+        }
+        report = System.getProperty(REPORT_PROPERTY)==null ? null : getReport();
+        checkpoint = getCheckpoint();
+        cache = getCache();
+        return perfT;
+	}
+
+    private Stream<DynamicTest> toTests(PerfT<M> perfT, Stream<Task> tasks, URI source, Variant variant, int threads, ExecutorService executor) {
+        return executor==null ? tasks.map(t -> toTest(t, source, () -> run(perfT, t, variant), variant)) :
+        	submit(tasks, 2*threads, t -> toTest(t, source, executor.submit(() -> run(perfT, t, variant)), variant));
+	}
+
+	private static URI toURI(String resource) {
+		return URI.create(CLASSPATH_SCHEME+":"+resource);
+	}
+
+	/** Opens an EPD file.
+	 * @param source the URI of a class path resource or of a file.
+	 * @return a new reader
+	 */
+	private EpdReader open(URI source) throws IOException {
+		if (CLASSPATH_SCHEME.equals(source.getScheme())) {
+			return EpdReader.ofResource(getClass(), source.getSchemeSpecificPart());
+		}
+		return EpdReader.of(Path.of(source));
+	}
+
+	/** Gets the number of threads dedicated to the perft computations.
+	 * <br>The default implementation returns the value of the <code>perftThreads</code> system property, or 0 if it is not set.
+	 * @return a positive number or 0 to compute each position in the JUnit thread that executes its test.
+	 */
+	protected int getThreads() {
+		return Integer.getInteger(THREADS_PROPERTY, 0);
+	}
+
+	/** Gets the executor that computes the positions when {@link #getThreads()} is positive.
+	 * <br>The default implementation returns a new fixed pool of <code>threads</code> platform daemon threads, so each position is computed by a single thread
+	 * and does not compete with the common pool.
+	 * <br>This method is called once per test class: the executor is shared by all the suites of the class, so concurrent suites do not oversubscribe the processors.
+	 * It is shut down after all the tests of the class are run.
+	 * @param threads The number of threads returned by {@link #getThreads()}
+	 * @return an executor
+	 */
+	protected ExecutorService getExecutor(int threads) {
+		return Executors.newFixedThreadPool(threads, Threads.daemonFactory("perft"));
+	}
+
+	/** Gets the executor shared by all the suites of this class.
+	 * <br>It is shut down by {@link #shutdownExecutor(TestInfo)}, even if the creation of a suite fails.
+	 */
+	private ExecutorService getSharedExecutor(int threads) {
+		synchronized (PerftTest.class) {
+			return sharedExecutors.computeIfAbsent(getClass(), c -> getExecutor(threads));
+		}
+	}
+
+	/** Gets the checkpoint shared by all the suites.
+	 * @return a checkpoint or null if the <code>perftCheckpoint</code> system property is not set.
+	 */
+	private static PerftCheckpoint getCheckpoint() throws IOException {
+		final String path = System.getProperty(CHECKPOINT_PROPERTY);
+		synchronized (PerftTest.class) {
+			if (path!=null && sharedCheckpoint==null) {
+				sharedCheckpoint = PerftCheckpoint.open(Path.of(path));
+				closeAtShutdown(sharedCheckpoint);
+				System.err.println(String.format("%s: %d root moves already checked", CHECKPOINT_PROPERTY, sharedCheckpoint.size()));
+			}
+			return sharedCheckpoint;
+		}
+	}
+
+	/** Gets the cache shared by all the test classes.
+	 * @return a cache or null if the <code>perftCache</code> system property is not set.
+	 */
+	private PerftCache getCache() throws IOException {
+		final String path = System.getProperty(CACHE_PROPERTY);
+		synchronized (PerftTest.class) {
+			if (path!=null && sharedCache==null) {
+				sharedCache = PerftCache.open(Path.of(path), getCacheFingerprint(), Integer.getInteger(CACHE_SIZE_PROPERTY, 64));
+				closeAtShutdown(sharedCache);
+			}
+			return sharedCache;
+		}
+	}
+
+	/** Closes a resource shared by all the test classes when the JVM exits.
+	 * <br>Test classes can run concurrently, so a class can't close these resources when its tests are completed.
+	 */
+	private static void closeAtShutdown(Closeable resource) {
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			try {
+				resource.close();
+			} catch (IOException e) {
+				System.err.println("Unable to close "+resource+": "+e);
+			}
+		}, "perft-shutdown"));
+	}
+
+	/** Gets the fingerprint of the tested move generator used by the <code>perftCache</code> file.
+	 * <br>When the fingerprint changes, the cache is cleared.
+	 * <br>The default implementation is built from the code sources (the jar files or the class directories, with their sizes and last modification dates)
+	 * of the classes of the adapter, of its boards and of its moves, and of their super classes. So, the fingerprint changes when these classes are recompiled,
+	 * or when the library that contains them, or that contains the super class of the moves, is upgraded.
+	 * You should override it if the move generator is in other classes, for instance to return the version or the commit of your library.
+	 * @return a String
+	 */
+	protected String getCacheFingerprint() {
+		final B board = adapter.fenToBoard(STANDARD_START_FEN, Variant.STANDARD);
+		final Set<URL> locations = new LinkedHashSet<>();
+		Stream.concat(Stream.of(adapter.getClass(), board.getClass()), board.getMoves().stream().limit(1).map(Object::getClass)).forEach(clazz -> {
+			for (Class<?> current = clazz; current!=null; current = current.getSuperclass()) {
+				final CodeSource source = current.getProtectionDomain().getCodeSource();
+				if (source!=null && source.getLocation()!=null) {
+					locations.add(source.getLocation());
+				}
+			}
+		});
+		return locations.stream().map(PerftTest::getFingerprint).collect(Collectors.joining(";"));
+	}
+
+	private static String getFingerprint(URL location) {
+		try {
+			final Path path = Path.of(location.toURI());
+			if (!Files.isDirectory(path)) {
+				return path+"@"+Files.size(path)+"@"+Files.getLastModifiedTime(path).toMillis();
+			}
+			// The modification date of a directory does not change when the files it contains are modified
+			long size = 0;
+			long lastModified = 0;
+			try (Stream<Path> files = Files.walk(path)) {
+				for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+					size += Files.size(file);
+					lastModified = Math.max(lastModified, Files.getLastModifiedTime(file).toMillis());
+				}
+			}
+			return path+"@"+size+"@"+lastModified;
+		} catch (IOException | URISyntaxException | IllegalArgumentException | FileSystemNotFoundException e) {
+			return location.toString();
+		}
+	}
+
+	/** Gets the report shared by all the suites, so that the report file contains all the tested positions. */
+	private PerftReport getReport() {
+		synchronized (PerftTest.class) {
+			if (sharedReport==null) {
+				sharedReport = new PerftReport(adapter.getClass().getName());
+			}
+			return sharedReport;
+		}
+	}
+
+	/** Gets the lines of the current shard.
+	 * @param source The EPD file
+	 * @param depth The depth used to compute the cost of the lines (Integer.MAX_VALUE to use the deepest count of each line)
+	 * @return a predicate on line numbers
+	 */
+	private LongPredicate getShardFilter(URI source, int depth) throws IOException {
+		final String value = System.getProperty(SHARD_PROPERTY);
+		if (value==null) {
+			return line -> true;
+		}
+		final LongStream.Builder lines = LongStream.builder();
+		final LongStream.Builder costs = LongStream.builder();
+		try (EpdReader reader = open(source)) {
+			reader.stream().forEach(entry -> {
+				lines.add(entry.line());
+				costs.add(entry.getCount(Math.min(depth, entry.getMaxDepth())));
+			});
+		}
+		return select(Shard.parse(value), lines.build().toArray(), costs.build().toArray(), "lines");
+	}
+
+	/** Gets the positions of the current shard.
+	 * @param dataset The dataset
+	 * @param depth The depth used to compute the cost of the positions
+	 * @return a predicate on position numbers (the first position is 1)
+	 */
+	private static LongPredicate getShardFilter(PackedPerftDataset dataset, int depth) {
+		final String value = System.getProperty(SHARD_PROPERTY);
+		if (value==null) {
+			return number -> true;
+		}
+		final long[] numbers = LongStream.rangeClosed(1, dataset.size()).toArray();
+		final long[] costs = LongStream.range(0, dataset.size()).map(i -> {
+			final PackedPosition position = dataset.get(i);
+			return position.getCount(Math.min(depth, position.getMaxDepth()));
+		}).toArray();
+		return select(Shard.parse(value), numbers, costs, "positions");
+	}
+
+	private static LongPredicate select(Shard shard, long[] numbers, long[] costs, String unit) {
+		final long[] selected = shard.select(numbers, costs);
+		System.err.println(String.format("%s: %s, %d %s", SHARD_PROPERTY, shard, selected.length, unit));
+		return number -> Arrays.binarySearch(selected, number)>=0;
+	}
+
+	/** Gets the tasks of a suite at a fixed depth.
+	 * <br>The EPD file is read lazily, while JUnit consumes the tests (JUnit closes the stream, and the reader, at the end).
+	 */
+	private Stream<Task> getTasks(String depthProperty, int defaultDepth, EpdReader reader, LongPredicate shardLines) {
+		final int depth = Integer.getInteger(depthProperty, defaultDepth);
+		final LongAdder lines = new LongAdder();
+		return reader.withMinDepth(depth).stream().filter(entry -> shardLines.test(entry.line())).map(entry -> {
+			lines.increment();
+			return new Task(entry, depth);
+		}).onClose(() -> {
+	        if (depth!=defaultDepth) {
+	        	System.err.println(depthProperty+": "+depth+", "+lines.sum()+" lines");
+	        }
+		});
+	}
+
+	/** Gets the tasks of a suite with a time budget.
+	 * <br>All the positions are first run at min depth to measure the speed of the adapter. This calibration uses the executor, if any.
+	 * Otherwise, if the factory is executed by the JUnit parallel executor, it is parallelized in the same pool as the tests, if not, it is sequential, like the tests will be.
+	 */
+	private Stream<Task> getBudgetedTasks(PerfT<M> perfT, String budgetProperty, long budget, int minDepth, EpdReader reader, LongPredicate shardLines, Variant variant, ExecutorService executor) {
+		final long start = System.currentTimeMillis();
+		final List<EpdReader.Entry> entries = reader.stream().filter(entry -> shardLines.test(entry.line())).toList();
+		final long[][] counts = entries.stream().map(EpdReader.Entry::counts).toArray(long[][]::new);
+		final int[] minDepths = DepthScheduler.schedule(counts, minDepth, 0);
+		final List<Task> calibration = IntStream.range(0, minDepths.length).filter(i -> minDepths[i]!=0).mapToObj(i -> new Task(entries.get(i), minDepths[i])).toList();
+		if (executor!=null) {
+			calibration.stream().map(t -> executor.submit(() -> calibrate(perfT, t, variant))).toList().forEach(Threads::get);
+		} else {
+			(ForkJoinTask.inForkJoinPool() ? calibration.parallelStream() : calibration.stream()).forEach(t -> calibrate(perfT, t, variant));
+		}
+		final long minLeaves = DepthScheduler.getLeaves(counts, minDepths);
+		final long elapsed = Math.max(1, System.currentTimeMillis()-start);
+		final long leavesBudget = (long)(Math.max(0, budget-elapsed) * ((double)minLeaves/elapsed));
+		final int[] depths = DepthScheduler.schedule(counts, minDepth, Math.max(minLeaves, leavesBudget));
+		System.err.println(String.format("%s: %dms, %d lines, %d leaves scheduled after a %dms calibration", budgetProperty, budget, entries.size(),
+				DepthScheduler.getLeaves(counts, depths), elapsed));
+		return IntStream.range(0, depths.length).filter(i -> depths[i]!=0).mapToObj(i -> new Task(entries.get(i), depths[i]));
+	}
+
+	/** Submits the tasks ahead of the tests that check them.
+	 * <br>Up to <code>window</code> tasks are submitted before JUnit executes their tests, so the executor is kept busy even if JUnit runs the tests sequentially.
+	 */
+	private static <T> Stream<DynamicTest> submit(Stream<T> tasks, int window, Function<T, DynamicTest> submitter) {
+		final Iterator<T> iterator = tasks.iterator();
+		final Deque<DynamicTest> pending = new ArrayDeque<>(window);
+		final Iterator<DynamicTest> tests = new Iterator<>() {
+			@Override
+			public boolean hasNext() {
+				while (pending.size()<window && iterator.hasNext()) {
+					pending.add(submitter.apply(iterator.next()));
+				}
+				return !pending.isEmpty();
+			}
+
+			@Override
+			public DynamicTest next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return pending.poll();
+			}
+		};
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(tests, Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(tasks::close);
+	}
+
+	private PerfT.Result<M> run(PerfT<M> perfT, Task task, Variant variant) {
+		final String fen = cache==null && checkpoint==null ? null : task.getFen(variant);
+		DivideStore store = cache==null ? null : cache.getRoot(fen, variant, task.depth());
+		if (checkpoint!=null) {
+			final DivideStore root = checkpoint.getRoot(fen, variant, task.depth());
+			store = store==null ? root : store.andThen(root);
+		}
+		return perfT.divide(toBoard(task, variant), task.depth(), store);
+	}
+
+	/** Runs a task without checkpoint or cache, to measure the speed of the adapter. */
+	private PerfT.Result<M> calibrate(PerfT<M> perfT, Task task, Variant variant) {
+		return perfT.divide(toBoard(task, variant), task.depth());
+	}
+
+	private B toBoard(Task task, Variant variant) {
+		return task.packed()==null ? adapter.fenToBoard(task.entry().fen(), variant) : PackedPerftDataset.toBoard(adapter, task.packed(), variant);
+	}
+
+	private DynamicTest toTest(Task task, URI source, Future<PerfT.Result<M>> result, Variant variant) {
+		return toTest(task, source, () -> Threads.get(result), variant);
+	}
+
+	private DynamicTest toTest(Task task, URI source, Supplier<PerfT.Result<M>> result, Variant variant) {
+		final EpdReader.Entry entry = task.entry();
+		final String unit = task.packed()==null ? "line" : "position";
+		// The FEN of packed positions is not built for the test names, the position number identifies them
+		final String name = task.packed()==null ? String.format("Line %d: %s, depth %d", entry.line(), entry.fen(), task.depth()) :
+			String.format("Position %d, depth %d", entry.line(), task.depth());
+		return DynamicTest.dynamicTest(name, URI.create(source+"?"+unit+"="+entry.line()), () -> check(result.get(), task, variant));
+	}
+
+	private void check(PerfT.Result<M> result, Task task, Variant variant) {
+		final int depth = task.depth();
+		final long expectedTotalMoves = task.entry().getCount(depth);
+        if (report!=null) {
+        	report.add(task.getFen(variant), variant, depth, result);
+        }
+        assertEquals(expectedTotalMoves, result.getNbLeaves(), () -> getFailureMessage(task.getFen(variant), variant, depth, expectedTotalMoves, result.getNbLeaves()));
+	}
+
+	private String getFailureMessage(String fen, Variant variant, int depth, long expectedTotalMoves, long actual) {
+		return String.format("Fen: %s, Depth: %s, Expected: %s, Actual: %s", fen, depth, expectedTotalMoves, actual)+
+				getStatistics(fen, variant, depth)+getFault(fen, variant, depth);
+	}
+
+	/** Converts a duration to milliseconds.
+	 * @param duration a number followed by an optional unit (ms, s, m or h). Default unit is the second.
+	 * @return a number of milliseconds
+	 * @throws IllegalArgumentException if the duration can't be parsed
+	 */
+	static long toMillis(String duration) {
+		final String value = duration.trim().toLowerCase(Locale.ROOT);
+		int index = 0;
+		while (index<value.length() && Character.isDigit(value.charAt(index))) {
+			index++;
+		}
+		if (index==0) {
+			throw new IllegalArgumentException("Invalid duration: "+duration);
+		}
+		final long number = Long.parseLong(value.substring(0, index));
+		return switch (value.substring(index).trim()) {
+			case "ms" -> number;
+			case "", "s" -> number*1000;
+			case "m" -> number*60000;
+			case "h" -> number*3600000;
+			default -> throw new IllegalArgumentException("Invalid duration unit: "+duration);
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	private String getStatistics(String fen, Variant variant, int depth) {
+		if (!(adapter instanceof MoveClassifier)) {
+			return "";
+		}
+		final PerfT.Result<M> result = new PerfT<M>().withStatistics((MoveClassifier<B, M>) adapter).divide(adapter.fenToBoard(fen, variant), depth);
+		return System.lineSeparator()+result.statistics();
+	}
+
+	private String getFault(String fen, Variant variant, int depth) {
+		final TestAdapter<?, ?> reference = getReferenceAdapter();
+		if (reference==null) {
+			return "";
+		}
+		return new PerftBisector(adapter, reference).bisect(fen, variant, depth).map(f -> System.lineSeparator()+"Faulty position: "+f).orElse("");
+	}
+
+	/** Gets the adapter used as a reference to find the faulty position when a test fails.
+	 * <br>The default implementation loads the class whose name is in the <code>chess-test-utils.referenceAdapter</code> system property.
+	 * <br>You can override this method to provide a different way to load the reference adapter.
+	 * @return an adapter or null to not search the faulty position.
+	 * @throws IllegalStateException if the adapter class can't be loaded.
+	 */
+	protected TestAdapter<?, ?> getReferenceAdapter() {
+		return REFERENCE_LOADER.get();
 	}
 }
@@ -0,0 +1,124 @@
+package com.fathzer.chess.utils.test.helper.concurrent;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/** A producer of stream elements that runs ahead of its consumer.
+ * <br>A dedicated thread consumes the source stream (for instance reads and parses an {@link com.fathzer.chess.utils.test.helper.perft.EpdReader EPD file}) and puts its elements in a bounded queue,
+ * while the consumer takes them from the queue. So, blocking I/O does not stall the threads that process the elements, as long as the producer
+ * is faster on average. When the queue is full, the producer waits (backpressure): at most <code>capacity</code> elements are kept in memory.
+ * <br>Exceptions and errors thrown by the source are rethrown to the consumer when it reaches them.
+ * <br>Closing the returned stream stops the producer and closes the source.
+ */
+public final class Prefetcher {
+	/** The end of the source. */
+	private static final Object END = new Object();
+
+	/** An exception thrown by the source. */
+	private record Failure(Throwable exception) {
+		private void rethrow() {
+			if (exception instanceof RuntimeException e) {
+				throw e;
+			} else if (exception instanceof Error e) {
+				throw e;
+			}
+			throw new IllegalStateException(exception);
+		}
+	}
+
+	private Prefetcher() {
+		super();
+	}
+
+	/** Prefetches a stream in a new daemon thread.
+	 * @param <T> the type of the elements
+	 * @param source the source stream
+	 * @param capacity the maximum number of elements prefetched
+	 * @return a sequential stream of the source's elements, in the same order
+	 * @throws IllegalArgumentException if capacity is not strictly positive
+	 */
+	public static <T> Stream<T> prefetch(Stream<T> source, int capacity) {
+		return prefetch(source, capacity, Threads.daemonFactory("prefetcher"));
+	}
+
+	/** Prefetches a stream.
+	 * @param <T> the type of the elements
+	 * @param source the source stream
+	 * @param capacity the maximum number of elements prefetched
+	 * @param threadFactory the factory of the producer thread
+	 * @return a sequential stream of the source's elements, in the same order
+	 * @throws IllegalArgumentException if capacity is not strictly positive
+	 */
+	public static <T> Stream<T> prefetch(Stream<T> source, int capacity, ThreadFactory threadFactory) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Capacity MUST be > 0");
+		}
+		final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(capacity);
+		final Thread producer = threadFactory.newThread(() -> produce(source, queue));
+		producer.start();
+		final Iterator<T> iterator = new Iterator<>() {
+			private Object next;
+
+			@Override
+			public boolean hasNext() {
+				if (next == null) {
+					next = take(queue);
+				}
+				if (next instanceof Failure failure) {
+					failure.rethrow();
+				}
+				return next != END;
+			}
+
+			@SuppressWarnings("unchecked")
+			@Override
+			public T next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				final T result = (T) next;
+				next = null;
+				return result;
+			}
+		};
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(producer::interrupt);
+	}
+
+	private static <T> void produce(Stream<T> source, BlockingQueue<Object> queue) {
+		try (source) {
+			Object last;
+			try {
+				final Iterator<T> iterator = source.iterator();
+				while (iterator.hasNext()) {
+					queue.put(iterator.next());
+				}
+				last = END;
+			} catch (InterruptedException e) {
+				throw e;
+			} catch (Throwable e) {
+				// Errors are also sent to the consumer, otherwise it would wait forever for the end of the source
+				last = new Failure(e);
+			}
+			queue.put(last);
+		} catch (InterruptedException e) {
+			// The consumer closed the stream
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static Object take(BlockingQueue<Object> queue) {
+		try {
+			return queue.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package com.fathzer.chess.utils.test.helper.concurrent;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Utilities to run tasks in dedicated threads.
+ */
+public final class Threads {
+	private Threads() {
+		super();
+	}
+
+	/** Gets a factory of daemon threads.
+	 * <br>Daemon threads do not prevent the JVM from exiting if a test ends without shutting its executor down.
+	 * @param name the prefix of the thread names. The threads are named <i>name</i>-1, <i>name</i>-2, etc.
+	 * @return a thread factory
+	 */
+	public static ThreadFactory daemonFactory(String name) {
+		final AtomicInteger count = new AtomicInteger();
+		return r -> {
+			final Thread thread = new Thread(r, name+"-"+count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/** Waits for the result of a future.
+	 * <br>Unlike {@link Future#get()}, this method rethrows the {@link RuntimeException} or the {@link Error} thrown by the task, so that test failures
+	 * (for instance {@link AssertionError}) are reported as is.
+	 * @param <T> the type of the result
+	 * @param future the future
+	 * @return the result of the future
+	 * @throws IllegalStateException if the task threw a checked exception, or if the current thread is interrupted (its interrupted status is restored)
+	 */
+	public static <T> T get(Future<T> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException re) {
+				throw re;
+			} else if (e.getCause() instanceof Error err) {
+				throw err;
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+}
@@ -0,0 +1,3 @@
+/** Utility classes related to threads.
+*/
+package com.fathzer.chess.utils.test.helper.concurrent;
@@ -0,0 +1,82 @@
+package com.fathzer.chess.utils.test.helper.fen;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/** The 960 start positions of <a href="https://en.wikipedia.org/wiki/Chess960">Chess960</a>.
+ * <br>Positions are identified by their <a href="https://en.wikipedia.org/wiki/Fischer_random_chess_numbering_scheme">Scharnagl number</a>, from 0 to 959.
+ * The standard chess start position is the number 518.
+ */
+public final class Chess960StartPositions {
+	/** The number of start positions. */
+	public static final int COUNT = 960;
+
+	/** The knights positions among the 5 squares that remain free once the bishops and the queen are placed. */
+	private static final String[] KNIGHTS = {"NN---", "N-N--", "N--N-", "N---N", "-NN--", "-N-N-", "-N--N", "--NN-", "--N-N", "---NN"};
+
+	private Chess960StartPositions() {
+		super();
+	}
+
+	/** Gets the white pieces of the first rank of a start position.
+	 * @param number the Scharnagl number of the position
+	 * @return a String of 8 upper case letters, from file a to file h (for instance "RNBQKBNR" for the number 518)
+	 * @throws IllegalArgumentException if number is not in [0, 959]
+	 */
+	public static String getPieces(int number) {
+		if (number < 0 || number >= COUNT) {
+			throw new IllegalArgumentException("Invalid start position number: " + number);
+		}
+		final char[] rank = new char[8];
+		rank[(number % 4) * 2 + 1] = 'B';
+		rank[((number / 4) % 4) * 2] = 'B';
+		int n = number / 16;
+		place(rank, 'Q', n % 6);
+		n = n / 6;
+		final int[] free = IntStream.range(0, 8).filter(i -> rank[i] == 0).toArray();
+		for (int i = 0; i < free.length; i++) {
+			if (KNIGHTS[n].charAt(i) == 'N') {
+				rank[free[i]] = 'N';
+			}
+		}
+		place(rank, 'R', 0);
+		place(rank, 'K', 0);
+		place(rank, 'R', 0);
+		return new String(rank);
+	}
+
+	/** Gets the FEN of a start position.
+	 * <br>Castling rights are expressed with the files of the rooks (Shredder-FEN), for instance "HAha".
+	 * @param number the Scharnagl number of the position
+	 * @return a FEN
+	 * @throws IllegalArgumentException if number is not in [0, 959]
+	 */
+	public static String getFEN(int number) {
+		final String pieces = getPieces(number);
+		final char kingSide = (char) ('A' + pieces.lastIndexOf('R'));
+		final char queenSide = (char) ('A' + pieces.indexOf('R'));
+		final String castling = "" + kingSide + queenSide + Character.toLowerCase(kingSide) + Character.toLowerCase(queenSide);
+		return pieces.toLowerCase() + "/pppppppp/8/8/8/8/PPPPPPPP/" + pieces + " w " + castling + " - 0 1";
+	}
+
+	/** Gets all the start positions.
+	 * @return the FENs of the positions, ordered by Scharnagl number
+	 */
+	public static Stream<String> getFENs() {
+		return IntStream.range(0, COUNT).mapToObj(Chess960StartPositions::getFEN);
+	}
+
+	/** Places a piece on a free square.
+	 * @param rank the rank
+	 * @param piece the piece
+	 * @param index the index of the free square, among the free squares
+	 */
+	private static void place(char[] rank, char piece, int index) {
+		for (int i = 0; i < rank.length; i++) {
+			if (rank[i] == 0 && index-- == 0) {
+				rank[i] = piece;
+				return;
+			}
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package com.fathzer.chess.utils.test.helper.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/** Utilities to read and write binary files that start with a header.
+ * <br>The header starts with an int magic number that identifies the file format, followed by format specific data (usually a format version first).
+ */
+public final class BinaryFiles {
+	private BinaryFiles() {
+		super();
+	}
+
+	/** Reads the header of a file.
+	 * @param channel the file channel. Its position is not changed.
+	 * @param size the size of the header
+	 * @param magic the magic number of the file format
+	 * @return the header, positioned after its magic number, or null if the file is shorter than the header or does not start with the magic number
+	 * @throws IOException if an I/O error occurs
+	 */
+	public static ByteBuffer readHeader(FileChannel channel, int size, int magic) throws IOException {
+		final ByteBuffer header = ByteBuffer.allocate(size);
+		while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+			// Read the whole header
+		}
+		header.flip();
+		return header.remaining() == size && header.getInt() == magic ? header : null;
+	}
+
+	/** Writes the content of a buffer at the position of a channel, then clears the buffer.
+	 * @param channel the channel
+	 * @param buffer the buffer, in write mode (its content is between 0 and its position)
+	 * @throws IOException if an I/O error occurs
+	 */
+	public static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
@@ -0,0 +1,3 @@
+/** Utility classes related to binary files.
+*/
+package com.fathzer.chess.utils.test.helper.io;
@@ -0,0 +1,66 @@
+package com.fathzer.chess.utils.test.helper.perft;
+
+import java.util.List;
+
+import com.fathzer.chess.utils.model.ForkableBoard;
+import com.fathzer.chess.utils.model.IBoard;
+import com.fathzer.chess.utils.model.TestAdapter;
+import com.fathzer.chess.utils.model.Variant;
+
+/** A class that can create an independent copy of a board.
+ * <br>{@link IBoard} instances are mutable, so a board can't be shared between threads. {@link ParallelPerfT} uses a forker to give each of its tasks its own board.
+ * @param <M> the type of the move
+ */
+@FunctionalInterface
+public interface BoardForker<M> {
+	/** Creates a copy of a board.
+	 * <br>The returned board should be in the same position as <code>board</code> and should share no mutable state with it.
+	 * @param board the board to copy
+	 * @param uciMoves the moves, in UCI format, that were played on <code>board</code> since the root position of the perft.
+	 * @return a new board
+	 */
+	IBoard<M> fork(IBoard<M> board, List<String> uciMoves);
+
+	/** Gets a forker that uses {@link ForkableBoard#fork()} when the board to copy is a {@link ForkableBoard}, and another forker when it is not.
+	 * @param <M> the type of the move
+	 * @param fallback the forker to use when the board is not a {@link ForkableBoard}
+	 * @return a new forker
+	 */
+	static <M> BoardForker<M> forkable(BoardForker<M> fallback) {
+		return (board, uciMoves) -> board instanceof ForkableBoard<M> forkable ? forkable.fork() : fallback.fork(board, uciMoves);
+	}
+
+	/** Gets a forker that works with every board.
+	 * <br>It rebuilds the root board from its FEN with {@link TestAdapter#fenToBoard(String, Variant)}, then replays the moves.
+	 * @param <B> the type of the board
+	 * @param <M> the type of the move
+	 * @param adapter the adapter used to create the boards
+	 * @param fen the FEN of the root position
+	 * @param variant the variant of the root position
+	 * @return a new forker
+	 */
+	static <B extends IBoard<M>, M> BoardForker<M> replay(TestAdapter<B, M> adapter, String fen, Variant variant) {
+		return (board, uciMoves) -> {
+			final B copy = adapter.fenToBoard(fen, variant);
+			for (String uciMove : uciMoves) {
+				if (!copy.makeMove(copy.toMove(uciMove))) {
+					throw new IllegalArgumentException("Move "+uciMove+" is not legal");
+				}
+			}
+			return copy;
+		};
+	}
+
+	/** Gets the forker to use by default.
+	 * <br>It uses {@link ForkableBoard#fork()} when the board implements {@link ForkableBoard} and falls back to {@link #replay(TestAdapter, String, Variant)} otherwise.
+	 * @param <B> the type of the board
+	 * @param <M> the type of the move
+	 * @param adapter the adapter used to create the boards
+	 * @param fen the FEN of the root position
+	 * @param variant the variant of the root position
+	 * @return a new forker
+	 */
+	static <B extends IBoard<M>, M> BoardForker<M> of(TestAdapter<B, M> adapter, String fen, Variant variant) {
+		return forkable(replay(adapter, fen, variant));
+	}
+}
@@ -0,0 +1,79 @@
+package com.fathzer.chess.utils.test.helper.perft;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/** A class that chooses the depth of each position of a perft suite, in order to verify as many nodes as possible within a budget.
+ * <br>The cost of a position at a given depth is its expected number of leaves. Starting from a minimum depth, the scheduler repeatedly
+ * increments the depth of the position whose next depth is the cheapest, as long as the budget allows it.
+ * So cheap positions are explored deeper and a few explosive positions can't exhaust the whole budget.
+ */
+public final class DepthScheduler {
+	private DepthScheduler() {
+		super();
+	}
+
+	/** Schedules the depths.
+	 * @param counts The expected number of leaves of the positions. <code>counts[i][d]</code> is the number of leaves of position <code>i</code> at depth <code>d</code>
+	 * (<code>counts[i][0]</code> is ignored). The arrays can have different lengths, a position is never scheduled at a depth it has no count for
+	 * (or a negative count, see {@link EpdReader.Entry#counts()}).
+	 * @param minDepth The minimum depth, it is always scheduled, even if it exceeds the budget.
+	 * @param budget The maximum number of leaves of the whole suite.
+	 * @return the depth of each position. Positions with no count at <code>minDepth</code> have a 0 depth.
+	 * @throws IllegalArgumentException if minDepth &lt;= 0
+	 */
+	public static int[] schedule(long[][] counts, int minDepth, long budget) {
+		if (minDepth <= 0) {
+			throw new IllegalArgumentException("Min depth MUST be > 0");
+		}
+		final int[] depths = new int[counts.length];
+		long remaining = budget;
+		for (int i = 0; i < counts.length; i++) {
+			if (hasCount(counts[i], minDepth)) {
+				depths[i] = minDepth;
+				remaining -= counts[i][minDepth];
+			}
+		}
+		final PriorityQueue<Integer> upgrades = new PriorityQueue<>(Comparator.comparingLong(i -> cost(counts[i], depths[i])));
+		for (int i = 0; i < counts.length; i++) {
+			if (depths[i] != 0 && hasCount(counts[i], depths[i] + 1)) {
+				upgrades.add(i);
+			}
+		}
+		while (!upgrades.isEmpty()) {
+			final int index = upgrades.poll();
+			final long cost = cost(counts[index], depths[index]);
+			if (cost <= remaining) {
+				remaining -= cost;
+				depths[index]++;
+				if (hasCount(counts[index], depths[index] + 1)) {
+					upgrades.add(index);
+				}
+			}
+		}
+		return depths;
+	}
+
+	private static boolean hasCount(long[] counts, int depth) {
+		return counts.length > depth && counts[depth] >= 0;
+	}
+
+	private static long cost(long[] counts, int depth) {
+		return counts[depth + 1] - counts[depth];
+	}
+
+	/** Gets the total number of leaves of a schedule.
+	 * @param counts The expected number of leaves of the positions (see {@link #schedule(long[][], int, long)}).
+	 * @param depths The depths of the positions
+	 * @return the sum of the expected leaves of every position at its depth
+	 */
+	public static long getLeaves(long[][] counts, int[] depths) {
+		long result = 0;
+		for (int i = 0; i < depths.length; i++) {
+			if (depths[i] != 0) {
+				result += counts[i][depths[i]];
+			}
+		}
+		return result;
+	}
+}
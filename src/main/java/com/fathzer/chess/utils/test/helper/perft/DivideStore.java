@@ -0,0 +1,42 @@
+package com.fathzer.chess.utils.test.helper.perft;
+
+/** A store of the leaf counts of the root moves of a perft search.
+ * <br>When a store is passed to {@link PerfT#divide(com.fathzer.chess.utils.model.IBoard, int, DivideStore)}, the root moves found in the store are not searched,
+ * and the counts of the searched moves are saved in the store.
+ * @see PerftCheckpoint
+ * @see PerftCache
+ */
+public interface DivideStore {
+	/** Gets the leaf count of a root move.
+	 * @param move the move in UCI format
+	 * @return the count or a negative number if this move is not in the store.
+	 */
+	long getCount(String move);
+
+	/** Saves the leaf count of a root move.
+	 * @param move the move in UCI format
+	 * @param count the number of leaves of the move's subtree
+	 */
+	void setCount(String move, long count);
+
+	/** Chains this store with another one.
+	 * @param other another store
+	 * @return a store that looks for the counts in this store, then in <code>other</code>, and saves the counts in both stores.
+	 */
+	default DivideStore andThen(DivideStore other) {
+		final DivideStore first = this;
+		return new DivideStore() {
+			@Override
+			public long getCount(String move) {
+				final long count = first.getCount(move);
+				return count < 0 ? other.getCount(move) : count;
+			}
+
+			@Override
+			public void setCount(String move, long count) {
+				first.setCount(move, count);
+				other.setCount(move, count);
+			}
+		};
+	}
+}
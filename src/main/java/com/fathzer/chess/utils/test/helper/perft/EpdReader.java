@@ -0,0 +1,236 @@
+package com.fathzer.chess.utils.test.helper.perft;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/** A streaming reader of perft <a href="https://www.chessprogramming.org/Extended_Position_Description">EPD</a> files.
+ * <br>Each line contains a FEN followed by the expected leaf counts, separated by semicolons (for instance <code>8/8/8/8/8/8/8/K6k w - - 0 1;D1 3;D2 9</code>).
+ * <br>Lines are parsed lazily, one at a time, so files with millions of positions are read with a constant memory.
+ * Blank lines and lines starting with <code>#</code> are ignored.
+ */
+public class EpdReader implements Closeable {
+	/** A perft EPD line.
+	 * @param line the line number (the first line is 1)
+	 * @param fen the FEN of the position
+	 * @param counts the expected leaf counts, indexed by depth. <code>counts[0]</code> is 1 and a missing depth is represented by a negative count.
+	 */
+	public record Entry(long line, String fen, long[] counts) {
+		/** Gets the maximum depth of this entry.
+		 * @return a positive or null int
+		 */
+		public int getMaxDepth() {
+			return counts.length - 1;
+		}
+
+		/** Gets the expected leaf count at a depth.
+		 * @param depth a depth
+		 * @return the count or a negative number if it is unknown.
+		 */
+		public long getCount(int depth) {
+			return depth < counts.length ? counts[depth] : -1;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Entry other && line == other.line && fen.equals(other.fen) && Arrays.equals(counts, other.counts);
+		}
+
+		@Override
+		public int hashCode() {
+			return fen.hashCode() * 31 + Arrays.hashCode(counts);
+		}
+
+		@Override
+		public String toString() {
+			return line + ": " + fen + " " + Arrays.toString(counts);
+		}
+	}
+
+	private final BufferedReader reader;
+	private int minDepth;
+	private long lineNumber;
+
+	/** Constructor.
+	 * @param reader the reader of the EPD data
+	 */
+	public EpdReader(Reader reader) {
+		this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+	}
+
+	/** Creates a reader of an EPD file.
+	 * @param path the path of the file
+	 * @return a new reader
+	 * @throws IOException if the file can't be opened
+	 */
+	public static EpdReader of(Path path) throws IOException {
+		return new EpdReader(Files.newBufferedReader(path, StandardCharsets.UTF_8));
+	}
+
+	/** Creates a reader of an EPD class path resource.
+	 * @param clazz the class used to load the resource
+	 * @param resource the resource name
+	 * @return a new reader
+	 * @throws IOException if the resource does not exist
+	 */
+	public static EpdReader ofResource(Class<?> clazz, String resource) throws IOException {
+		final InputStream in = clazz.getResourceAsStream(resource);
+		if (in == null) {
+			throw new NoSuchFileException(resource);
+		}
+		return new EpdReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+	}
+
+	/** Sets the minimum depth of the returned entries.
+	 * <br>Lines with less depth columns are skipped before being parsed.
+	 * @param minDepth a depth (default is 0)
+	 * @return this
+	 */
+	public EpdReader withMinDepth(int minDepth) {
+		this.minDepth = minDepth;
+		return this;
+	}
+
+	/** Gets a lazy stream of the entries.
+	 * <br>The stream can be consumed only once. Closing it closes this reader.
+	 * @return a stream of entries
+	 * @throws UncheckedIOException if an I/O error occurs while reading the stream
+	 */
+	public Stream<Entry> stream() {
+		final Iterator<Entry> iterator = new Iterator<>() {
+			private Entry next;
+
+			@Override
+			public boolean hasNext() {
+				if (next == null) {
+					next = readNext();
+				}
+				return next != null;
+			}
+
+			@Override
+			public Entry next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				final Entry result = next;
+				next = null;
+				return result;
+			}
+		};
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(this::closeUnchecked);
+	}
+
+	/** Reads the next entry.
+	 * @return an entry or null if the end of the data is reached
+	 * @throws UncheckedIOException if an I/O error occurs
+	 */
+	public Entry readNext() {
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				if (!line.isBlank() && line.charAt(0) != '#' && countColumns(line) >= minDepth) {
+					final Entry entry = parse(lineNumber, line);
+					if (entry.getCount(minDepth) >= 0) {
+						return entry;
+					}
+				}
+			}
+			return null;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static int countColumns(String line) {
+		int count = 0;
+		for (int i = 0; i < line.length(); i++) {
+			if (line.charAt(i) == ';') {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/** Parses an EPD line.
+	 * @param lineNumber the line number
+	 * @param line the line
+	 * @return the entry
+	 * @throws IllegalArgumentException if the line is not a valid perft EPD line
+	 */
+	static Entry parse(long lineNumber, String line) {
+		int index = line.indexOf(';');
+		final String fen = (index < 0 ? line : line.substring(0, index)).trim();
+		long[] counts = new long[countColumns(line) + 1];
+		Arrays.fill(counts, -1);
+		counts[0] = 1;
+		int maxDepth = 0;
+		while (index >= 0) {
+			final int end = line.indexOf(';', index + 1);
+			final int columnEnd = end < 0 ? line.length() : end;
+			int i = skipSpaces(line, index + 1, columnEnd);
+			if (i == columnEnd || line.charAt(i) != 'D') {
+				throw new IllegalArgumentException("Invalid depth column at line " + lineNumber + ": " + line);
+			}
+			final int depthEnd = skipDigits(line, i + 1, columnEnd);
+			final int countStart = skipSpaces(line, depthEnd, columnEnd);
+			final int countEnd = skipDigits(line, countStart, columnEnd);
+			if (depthEnd == i + 1 || countEnd == countStart || skipSpaces(line, countEnd, columnEnd) != columnEnd) {
+				throw new IllegalArgumentException("Invalid depth column at line " + lineNumber + ": " + line);
+			}
+			final int depth = Integer.parseInt(line, i + 1, depthEnd, 10);
+			if (depth >= counts.length) {
+				final int oldLength = counts.length;
+				counts = Arrays.copyOf(counts, depth + 1);
+				Arrays.fill(counts, oldLength, counts.length, -1);
+			}
+			counts[depth] = Long.parseLong(line, countStart, countEnd, 10);
+			maxDepth = Math.max(maxDepth, depth);
+			index = end;
+		}
+		return new Entry(lineNumber, fen, maxDepth + 1 == counts.length ? counts : Arrays.copyOf(counts, maxDepth + 1));
+	}
+
+	private static int skipSpaces(String line, int index, int end) {
+		while (index < end && Character.isWhitespace(line.charAt(index))) {
+			index++;
+		}
+		return index;
+	}
+
+	private static int skipDigits(String line, int index, int end) {
+		while (index < end && Character.isDigit(line.charAt(index))) {
+			index++;
+		}
+		return index;
+	}
+
+	private void closeUnchecked() {
+		try {
+			close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+}
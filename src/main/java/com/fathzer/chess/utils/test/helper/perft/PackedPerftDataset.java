@@ -0,0 +1,197 @@
+package com.fathzer.chess.utils.test.helper.perft;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import com.fathzer.chess.utils.model.IBoard;
+import com.fathzer.chess.utils.model.PackedBoardFactory;
+import com.fathzer.chess.utils.model.TestAdapter;
+import com.fathzer.chess.utils.model.Variant;
+import com.fathzer.chess.utils.test.helper.io.BinaryFiles;
+
+/** A memory mapped binary perft dataset.
+ * <br>Reading a binary dataset is a lot faster than parsing text <a href="https://www.chessprogramming.org/Extended_Position_Description">EPD</a> files
+ * (see {@link #convert(EpdReader, Variant, int, Path)} to create a binary dataset from an EPD file).
+ * Positions are returned as {@link PackedPosition} views of the mapped file, and adapters that implement {@link PackedBoardFactory}
+ * can create their boards without any FEN parsing.
+ * <br>The records of the positions have a fixed size: the {@link PackedPosition#SIZE} bytes of the position, then its leaf counts for depths 1 to max depth
+ * (longs, -1 for unknown counts). So, the dataset is split in ranges without any scan, and its stream splits well for parallel processing.
+ * They follow a {@link BinaryFiles header} that contains the "PRFT" magic number, the version of the format (a byte), the variant (0 for standard, 1 for Chess960),
+ * the maximum depth, an unused byte and the number of positions (a long).
+ */
+public class PackedPerftDataset implements Closeable {
+	/** The size of the file header. */
+	public static final int HEADER_SIZE = 16;
+	private static final int MAGIC = 0x50524654;
+	private static final byte VERSION = 1;
+
+	private final FileChannel channel;
+	private final Variant variant;
+	private final int maxDepth;
+	private final long size;
+	private final int recordSize;
+	private final int recordsPerChunk;
+	private final MappedByteBuffer[] chunks;
+
+	private PackedPerftDataset(FileChannel channel) throws IOException {
+		this.channel = channel;
+		final ByteBuffer header = BinaryFiles.readHeader(channel, HEADER_SIZE, MAGIC);
+		if (header == null || header.get() != VERSION) {
+			throw new IOException("Not a packed perft dataset");
+		}
+		this.variant = header.get() == 0 ? Variant.STANDARD : Variant.CHESS960;
+		this.maxDepth = header.get();
+		header.get();
+		this.size = header.getLong();
+		this.recordSize = PackedPosition.SIZE + maxDepth * Long.BYTES;
+		if (channel.size() < HEADER_SIZE + size * recordSize) {
+			throw new IOException("Truncated packed perft dataset");
+		}
+		this.recordsPerChunk = Integer.MAX_VALUE / recordSize;
+		this.chunks = new MappedByteBuffer[(int) ((size + recordsPerChunk - 1) / recordsPerChunk)];
+		for (int i = 0; i < chunks.length; i++) {
+			final long first = (long) i * recordsPerChunk;
+			final long count = Math.min(recordsPerChunk, size - first);
+			chunks[i] = channel.map(MapMode.READ_ONLY, HEADER_SIZE + first * recordSize, count * recordSize);
+		}
+	}
+
+	/** Opens a dataset.
+	 * <br>Please note that the file remains mapped in memory until the dataset is garbage collected, even if it is closed.
+	 * @param path the dataset path
+	 * @return a new dataset
+	 * @throws IOException if the file can't be read or is not a valid dataset
+	 */
+	public static PackedPerftDataset open(Path path) throws IOException {
+		final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			return new PackedPerftDataset(channel);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/** Converts an EPD file to a binary dataset.
+	 * @param reader the EPD reader
+	 * @param variant the variant of the positions
+	 * @param maxDepth the maximum depth of the leaf counts (deeper counts are ignored)
+	 * @param target the path of the binary dataset
+	 * @return the number of converted positions
+	 * @throws IOException if an I/O error occurs
+	 * @throws IllegalArgumentException if a FEN is invalid or maxDepth is not in [0, 127]
+	 */
+	public static long convert(EpdReader reader, Variant variant, int maxDepth, Path target) throws IOException {
+		if (maxDepth < 0 || maxDepth > Byte.MAX_VALUE) {
+			throw new IllegalArgumentException("Max depth MUST be in [0, 127]");
+		}
+		final int recordSize = PackedPosition.SIZE + maxDepth * Long.BYTES;
+		try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			final ByteBuffer buffer = ByteBuffer.allocate(Math.max(HEADER_SIZE, recordSize) * 1024);
+			buffer.position(HEADER_SIZE);
+			long count = 0;
+			for (EpdReader.Entry entry = reader.readNext(); entry != null; entry = reader.readNext()) {
+				if (buffer.remaining() < recordSize) {
+					BinaryFiles.write(channel, buffer);
+				}
+				try {
+					PackedPosition.pack(entry.fen(), buffer);
+				} catch (IllegalArgumentException e) {
+					throw new IllegalArgumentException("Error at line " + entry.line() + ": " + e.getMessage(), e);
+				}
+				for (int depth = 1; depth <= maxDepth; depth++) {
+					buffer.putLong(entry.getCount(depth));
+				}
+				count++;
+			}
+			BinaryFiles.write(channel, buffer);
+			buffer.putInt(MAGIC).put(VERSION).put((byte) (variant == Variant.STANDARD ? 0 : 1)).put((byte) maxDepth).put((byte) 0).putLong(count);
+			buffer.flip();
+			channel.write(buffer, 0);
+			return count;
+		}
+	}
+
+	/** Gets the variant of the positions.
+	 * @return a variant
+	 */
+	public Variant getVariant() {
+		return variant;
+	}
+
+	/** Gets the maximum depth of the leaf counts.
+	 * @return a positive or null int
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	/** Gets the number of positions.
+	 * @return a positive or null long
+	 */
+	public long size() {
+		return size;
+	}
+
+	/** Gets a position.
+	 * @param index the index of the position
+	 * @return a view of the position
+	 * @throws IndexOutOfBoundsException if index is not in [0, size[
+	 */
+	public PackedPosition get(long index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException(index);
+		}
+		return new PackedPosition(chunks[(int) (index / recordsPerChunk)], (int) (index % recordsPerChunk) * recordSize, maxDepth);
+	}
+
+	/** Gets a stream of the positions.
+	 * <br>This stream splits well, it can be efficiently processed in parallel.
+	 * @return a stream
+	 */
+	public Stream<PackedPosition> stream() {
+		return LongStream.range(0, size).mapToObj(this::get);
+	}
+
+	/** Creates the board of a position.
+	 * @param <B> the type of the board
+	 * @param <M> the type of the move
+	 * @param adapter the adapter. If it implements {@link PackedBoardFactory}, the board is created from the packed position.
+	 * Otherwise, it is created with {@link TestAdapter#fenToBoard(String, Variant)}.
+	 * @param position the position
+	 * @return a new board
+	 */
+	public <B extends IBoard<M>, M> B toBoard(TestAdapter<B, M> adapter, PackedPosition position) {
+		return toBoard(adapter, position, variant);
+	}
+
+	/** Creates the board of a position.
+	 * @param <B> the type of the board
+	 * @param <M> the type of the move
+	 * @param adapter the adapter. If it implements {@link PackedBoardFactory}, the board is created from the packed position.
+	 * Otherwise, it is created with {@link TestAdapter#fenToBoard(String, Variant)}.
+	 * @param position the position
+	 * @param variant the variant of the position
+	 * @return a new board
+	 */
+	@SuppressWarnings("unchecked")
+	public static <B extends IBoard<M>, M> B toBoard(TestAdapter<B, M> adapter, PackedPosition position, Variant variant) {
+		if (adapter instanceof PackedBoardFactory<?> factory) {
+			return ((PackedBoardFactory<B>) factory).toBoard(position, variant);
+		}
+		return adapter.fenToBoard(position.toFEN(variant), variant);
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
@@ -0,0 +1,216 @@
+package com.fathzer.chess.utils.test.helper.perft;
+
+import java.nio.ByteBuffer;
+
+import com.fathzer.chess.utils.model.BoardPieceScanner;
+import com.fathzer.chess.utils.model.PositionView;
+
+/** A position of a {@link PackedPerftDataset}.
+ * <br>This class is a view on the dataset's buffer, no data is copied when it is created.
+ * <br>A position is stored in {@value #SIZE} bytes, followed by the expected leaf counts (one long per depth):<ul>
+ * <li>bytes 0 to 7: the occupancy bitboard (bit 0 is a1, bit 1 is b1, ..., bit 63 is h8).</li>
+ * <li>bytes 8 to 23: a 4 bits nibble for each occupied square, in the bitboard order, high nibble first.
+ * The 3 low bits of the nibble are the piece type ({@link BoardPieceScanner} constants), the high bit is set for black pieces.</li>
+ * <li>byte 24: 0 if white is to move, 1 if black is to move.</li>
+ * <li>bytes 25 and 26: the castling rights, a nibble for each one, in this order: white king side, white queen side, black king side, black queen side.
+ * The nibble is the file of the castling rook (0 for a, 7 for h) or 0xF if the castling is not allowed.</li>
+ * <li>byte 27: the file of the en passant square, or 0xFF if there is no en passant square.</li>
+ * <li>byte 28: the half move clock (capped to 255).</li>
+ * <li>bytes 29 and 30: the move number.</li>
+ * <li>byte 31: unused.</li>
+ * </ul>
+ */
+public final class PackedPosition implements PositionView {
+	/** The number of bytes of a position, excluding its leaf counts. */
+	public static final int SIZE = 32;
+	private static final String PIECES = " PNBRQK";
+	private static final int NONE = 0xF;
+
+	private final ByteBuffer buffer;
+	private final int offset;
+	private final int maxDepth;
+
+	PackedPosition(ByteBuffer buffer, int offset, int maxDepth) {
+		this.buffer = buffer;
+		this.offset = offset;
+		this.maxDepth = maxDepth;
+	}
+
+	@Override
+	public int getPiece(int square) {
+		final long occupancy = buffer.getLong(offset);
+		if ((occupancy & (1L << square)) == 0) {
+			return BoardPieceScanner.NONE;
+		}
+		final int index = Long.bitCount(occupancy & ((1L << square) - 1));
+		final int nibble = (buffer.get(offset + 8 + index / 2) >> (index % 2 == 0 ? 4 : 0)) & 0xF;
+		return (nibble & 8) == 0 ? nibble : -(nibble & 7);
+	}
+
+	@Override
+	public boolean isWhiteToMove() {
+		return buffer.get(offset + 24) == 0;
+	}
+
+	@Override
+	public int getCastlingRookFile(boolean white, boolean kingSide) {
+		final int castling = buffer.getShort(offset + 25);
+		final int shift = 12 - 4 * ((white ? 0 : 2) + (kingSide ? 0 : 1));
+		final int file = (castling >> shift) & 0xF;
+		return file == NONE ? -1 : file;
+	}
+
+	@Override
+	public int getEnPassantFile() {
+		final int file = buffer.get(offset + 27) & 0xFF;
+		return file == 0xFF ? -1 : file;
+	}
+
+	@Override
+	public int getHalfMoveClock() {
+		return buffer.get(offset + 28) & 0xFF;
+	}
+
+	@Override
+	public int getMoveNumber() {
+		return buffer.getShort(offset + 29) & 0xFFFF;
+	}
+
+	/** Gets the maximum depth of the leaf counts.
+	 * @return a positive or null int
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	/** Gets the expected leaf count at a depth.
+	 * @param depth a depth
+	 * @return the count or a negative number if it is unknown.
+	 */
+	public long getCount(int depth) {
+		if (depth == 0) {
+			return 1;
+		}
+		return depth > maxDepth ? -1 : buffer.getLong(offset + SIZE + (depth - 1) * Long.BYTES);
+	}
+
+	/** Packs a FEN.
+	 * @param fen the FEN (castling rights can be expressed with KQkq, X-FEN or Shredder-FEN)
+	 * @param target the buffer where to write the {@value #SIZE} bytes of the packed position, at its current position.
+	 * @throws IllegalArgumentException if the FEN is not valid
+	 */
+	static void pack(String fen, ByteBuffer target) {
+		final String[] parts = fen.trim().split("\\s+");
+		if (parts.length < 4) {
+			throw new IllegalArgumentException("Invalid FEN: " + fen);
+		}
+		final int[] board = parseBoard(parts[0], fen);
+		long occupancy = 0;
+		final byte[] pieces = new byte[16];
+		int index = 0;
+		for (int square = 0; square < 64; square++) {
+			if (board[square] != BoardPieceScanner.NONE) {
+				if (index == 32) {
+					throw new IllegalArgumentException("Too many pieces: " + fen);
+				}
+				occupancy |= 1L << square;
+				final int nibble = board[square] > 0 ? board[square] : 8 | -board[square];
+				pieces[index / 2] |= (byte) (index % 2 == 0 ? nibble << 4 : nibble);
+				index++;
+			}
+		}
+		target.putLong(occupancy);
+		target.put(pieces);
+		if (!"w".equals(parts[1]) && !"b".equals(parts[1])) {
+			throw new IllegalArgumentException("Invalid side to move: " + fen);
+		}
+		target.put((byte) ("w".equals(parts[1]) ? 0 : 1));
+		target.putShort((short) parseCastling(parts[2], board, fen));
+		if ("-".equals(parts[3])) {
+			target.put((byte) 0xFF);
+		} else if (parts[3].length() == 2 && parts[3].charAt(0) >= 'a' && parts[3].charAt(0) <= 'h') {
+			target.put((byte) (parts[3].charAt(0) - 'a'));
+		} else {
+			throw new IllegalArgumentException("Invalid en passant square: " + fen);
+		}
+		target.put((byte) Math.min(255, parts.length > 4 ? Integer.parseInt(parts[4]) : 0));
+		target.putShort((short) (parts.length > 5 ? Integer.parseInt(parts[5]) : 1));
+		target.put((byte) 0);
+	}
+
+	private static int[] parseBoard(String placement, String fen) {
+		final int[] board = new int[64];
+		final String[] ranks = placement.split("/");
+		if (ranks.length != 8) {
+			throw new IllegalArgumentException("Invalid board: " + fen);
+		}
+		for (int i = 0; i < 8; i++) {
+			final int rank = 7 - i;
+			int file = 0;
+			for (char c : ranks[i].toCharArray()) {
+				if (c >= '1' && c <= '8') {
+					file += c - '0';
+				} else {
+					final int type = PIECES.indexOf(Character.toUpperCase(c));
+					if (type <= 0 || file > 7) {
+						throw new IllegalArgumentException("Invalid board: " + fen);
+					}
+					board[rank * 8 + file] = Character.isUpperCase(c) ? type : -type;
+					file++;
+				}
+			}
+			if (file != 8) {
+				throw new IllegalArgumentException("Invalid board: " + fen);
+			}
+		}
+		return board;
+	}
+
+	private static int parseCastling(String castling, int[] board, String fen) {
+		// Nibbles order: white king side, white queen side, black king side, black queen side
+		final int[] files = {NONE, NONE, NONE, NONE};
+		if (!"-".equals(castling)) {
+			for (char c : castling.toCharArray()) {
+				final boolean white = Character.isUpperCase(c);
+				final int rank = white ? 0 : 7;
+				final int kingFile = findKing(board, rank, white ? BoardPieceScanner.KING : -BoardPieceScanner.KING, fen);
+				final char upper = Character.toUpperCase(c);
+				final int rookFile;
+				if (upper == 'K') {
+					rookFile = findOutermostRook(board, rank, white, 7, kingFile);
+				} else if (upper == 'Q') {
+					rookFile = findOutermostRook(board, rank, white, 0, kingFile);
+				} else if (upper >= 'A' && upper <= 'H') {
+					rookFile = upper - 'A';
+				} else {
+					rookFile = -1;
+				}
+				if (rookFile < 0 || rookFile == kingFile) {
+					throw new IllegalArgumentException("Invalid castling rights: " + fen);
+				}
+				files[(white ? 0 : 2) + (rookFile > kingFile ? 0 : 1)] = rookFile;
+			}
+		}
+		return files[0] << 12 | files[1] << 8 | files[2] << 4 | files[3];
+	}
+
+	private static int findKing(int[] board, int rank, int king, String fen) {
+		for (int file = 0; file < 8; file++) {
+			if (board[rank * 8 + file] == king) {
+				return file;
+			}
+		}
+		throw new IllegalArgumentException("Castling is allowed but the king is not on its first rank: " + fen);
+	}
+
+	private static int findOutermostRook(int[] board, int rank, boolean white, int from, int kingFile) {
+		final int rook = white ? BoardPieceScanner.ROOK : -BoardPieceScanner.ROOK;
+		final int step = from < kingFile ? 1 : -1;
+		for (int file = from; file != kingFile; file += step) {
+			if (board[rank * 8 + file] == rook) {
+				return file;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,184 @@
+package com.fathzer.chess.utils.test.helper.perft;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fathzer.chess.utils.model.IBoard;
+
+/**
+ * A <a href="https://www.chessprogramming.org/Perft">Perft</a> test that spreads the search tree over the threads of a {@link ForkJoinPool}.
+ * <br>The tree is split into one task per move at every ply until the split depth is reached, then each task counts its subtree
+ * sequentially with a {@link PerfT}. Idle threads steal pending tasks, so a single deep position keeps all the threads busy.
+ * <br>As {@link IBoard} instances are mutable, each task works on its own copy of the board, made by a {@link BoardForker}
+ * (see {@link BoardForker#of(com.fathzer.chess.utils.model.TestAdapter, String, com.fathzer.chess.utils.model.Variant)} to get a forker that works with any board).
+ * @param <M> the type of the move
+ */
+public class ParallelPerfT<M> {
+	private PerfT<M> perfT = new PerfT<>();
+	private final BoardForker<M> forker;
+	private ForkJoinPool pool = ForkJoinPool.commonPool();
+	private int splitDepth = 2;
+
+	/** Constructor.
+	 * @param forker the forker used to copy the boards passed to the tasks.
+	 */
+	public ParallelPerfT(BoardForker<M> forker) {
+		this.forker = forker;
+	}
+
+	/** Sets the pool that runs the tasks.
+	 * <br>By default, the {@link ForkJoinPool#commonPool() common pool} is used.
+	 * @param pool a pool
+	 * @return this
+	 */
+	public ParallelPerfT<M> withPool(ForkJoinPool pool) {
+		this.pool = pool;
+		return this;
+	}
+
+	/** Sets the {@link PerfT} used to count the subtrees below the split depth.
+	 * <br>This allows to use the PerfT options (for instance its {@link PerfT#withTranspositionTable(TranspositionTable) transposition table}) in parallel.
+	 * The instance is shared by all the tasks.
+	 * @param perfT a perfT instance
+	 * @return this
+	 */
+	public ParallelPerfT<M> withPerfT(PerfT<M> perfT) {
+		this.perfT = perfT;
+		return this;
+	}
+
+	/** Sets the split depth.
+	 * <br>The split depth is the number of plies, from the root position, where the tree is split into parallel tasks.
+	 * Higher values create more, smaller, tasks; it makes load balancing better but costs more board copies. Default is 2.
+	 * @param splitDepth a positive or null int. 0 means no parallelism at all.
+	 * @return this
+	 * @throws IllegalArgumentException if splitDepth is negative
+	 */
+	public ParallelPerfT<M> withSplitDepth(int splitDepth) {
+		if (splitDepth < 0) {
+			throw new IllegalArgumentException("Split depth MUST be >= 0");
+		}
+		this.splitDepth = splitDepth;
+		return this;
+	}
+
+	/**
+	 * Performs a <a href="https://www.chessprogramming.org/Perft">Perft</a> test.
+	 * <br>The result is the same as the one of {@link PerfT#divide(IBoard, int)}.
+	 * Its allocated bytes are the ones allocated by the sequential searches below the split depth and its number of threads is the pool's parallelism.
+	 * @param board the board to run the test on. This board is used by the calling thread only.
+	 * @param depth the depth of the search
+	 * @return the result of the test
+	 */
+	public PerfT.Result<M> divide(final IBoard<M> board, final int depth) {
+		if (depth <= 0) {
+			throw new IllegalArgumentException("Search depth MUST be > 0");
+		}
+		if (depth == 1 || splitDepth == 0) {
+			return perfT.divide(board, depth);
+		}
+		final long start = System.nanoTime();
+		final List<M> moves = board.getMoves();
+		final List<M> legalMoves = new ArrayList<>(moves.size());
+		final List<PerfTTask> tasks = new ArrayList<>(moves.size());
+		final Context context = new Context(new LongAdder(), perfT.newStatisticsCollector());
+		for (M move : moves) {
+			final PerfTTask task = newTask(board, move, Collections.emptyList(), depth - 1, context);
+			if (task != null) {
+				legalMoves.add(move);
+				tasks.add(task);
+			}
+		}
+		final List<Long> counts = pool.invoke(new RootTask(tasks));
+		final List<Divide<M>> divides = new ArrayList<>(legalMoves.size());
+		for (int i = 0; i < legalMoves.size(); i++) {
+			final long count = counts.get(i);
+			if (count != 0) {
+				divides.add(new Divide<>(legalMoves.get(i), count));
+			}
+		}
+		return new PerfT.Result<>(divides, PerfT.getAllocatedBytes() < 0 ? -1 : context.allocatedBytes().sum(),
+				context.statistics()==null ? null : context.statistics().get(), Duration.ofNanos(System.nanoTime() - start), pool.getParallelism());
+	}
+
+	/** Plays a move and creates the task that will count its subtree.
+	 * @return a task or null if the move is illegal
+	 */
+	private PerfTTask newTask(IBoard<M> board, M move, List<String> path, int depth, Context context) {
+		if (!board.makeMove(move)) {
+			return null;
+		}
+		try {
+			final List<String> childPath = new ArrayList<>(path.size() + 1);
+			childPath.addAll(path);
+			childPath.add(board.toUCI(move));
+			return new PerfTTask(forker.fork(board, childPath), childPath, depth, context);
+		} finally {
+			board.unmakeMove();
+		}
+	}
+
+	/** The data shared by all the tasks of a perft.
+	 * @param allocatedBytes the bytes allocated by the tasks
+	 * @param statistics the statistics collector, null if statistics are disabled
+	 */
+	private record Context(LongAdder allocatedBytes, StatisticsCollector statistics) {}
+
+	@SuppressWarnings("serial")
+	private class RootTask extends RecursiveTask<List<Long>> {
+		private final transient List<PerfTTask> tasks;
+
+		private RootTask(List<PerfTTask> tasks) {
+			this.tasks = tasks;
+		}
+
+		@Override
+		protected List<Long> compute() {
+			invokeAll(tasks);
+			return tasks.stream().map(PerfTTask::join).toList();
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private class PerfTTask extends RecursiveTask<Long> {
+		private final transient IBoard<M> board;
+		private final transient List<String> path;
+		private final int depth;
+		private final transient Context context;
+
+		private PerfTTask(IBoard<M> board, List<String> path, int depth, Context context) {
+			this.board = board;
+			this.path = path;
+			this.depth = depth;
+			this.context = context;
+		}
+
+		@Override
+		protected Long compute() {
+			if (depth <= 1 || path.size() >= splitDepth) {
+				final long before = PerfT.getAllocatedBytes();
+				final long count = perfT.get(board, depth, context.statistics());
+				context.allocatedBytes().add(PerfT.getAllocatedBytes() - before);
+				return count;
+			}
+			final List<PerfTTask> tasks = new ArrayList<>();
+			for (M move : board.getMoves()) {
+				final PerfTTask task = newTask(board, move, path, depth - 1, context);
+				if (task != null) {
+					tasks.add(task);
+				}
+			}
+			invokeAll(tasks);
+			long count = 0;
+			for (PerfTTask task : tasks) {
+				count += task.join();
+			}
+			return count;
+		}
+	}
+}
@@ -1,24 +1,62 @@
 package com.fathzer.chess.utils.test.helper.perft;
 
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 
+import com.fathzer.chess.utils.model.BulkCountingBoard;
+import com.fathzer.chess.utils.model.HashableBoard;
 import com.fathzer.chess.utils.model.IBoard;
+import com.fathzer.chess.utils.model.IntMoveBoard;
+import com.fathzer.chess.utils.model.MoveClassifier;
 
 /**
  * A basic <a href="https://www.chessprogramming.org/Perft">Perft</a> test.
+ * <br>By default, every node of the tree is visited. When a {@link TranspositionTable} is set with {@link #withTranspositionTable(TranspositionTable)}
+ * and the board implements {@link HashableBoard}, the leaf counts of the subtrees are cached and transposed subtrees are counted only once.
+ * <br>The moves are generated with {@link IBoard#getMoves(List)} in one list per ply, reused for the whole search.
+ * When the board implements {@link IntMoveBoard}, the moves below the root are generated in an int buffer instead.
+ * So, with boards that do not allocate memory to generate moves, the search allocates no memory once started.
+ * <br>At the last ply, the leaves are counted in bulk, without playing them, if the board returns legal moves or implements {@link BulkCountingBoard}.
+ * <br>When a {@link MoveClassifier} is set with {@link #withStatistics(MoveClassifier)}, detailed {@link Statistics} about the leaves are computed.
+ * <br>Long searches can be made resumable with a {@link PerftCheckpoint}, and their results can be cached on disk with a {@link PerftCache}.
  * @param <M> the type of the move
  */
 public class PerfT<M> {
+	private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = getThreadMXBean();
+
+	private TranspositionTable transpositionTable;
+	private MoveClassifier<IBoard<M>, M> classifier;
 	
 	/**
 	 * The result of a {@link PerfT} test.
 	 * @param <T> the type of the move
 	 * @param divides the list of {@link Divide}s
+	 * @param allocatedBytes the number of bytes allocated during the test, or a negative number if it is unknown.
+	 * @param statistics the detailed statistics or null if they were not computed (see {@link PerfT#withStatistics(MoveClassifier)}).
+	 * @param duration the wall clock duration of the test, or null if it is unknown.
+	 * @param threads the number of threads used by the test.
 	 */
-	public record Result<T>(Collection<Divide<T>> divides) {
+	public record Result<T>(Collection<Divide<T>> divides, long allocatedBytes, Statistics statistics, Duration duration, int threads) {
+		/**
+		 * Creates a single thread result without statistics and whose allocated bytes and duration are unknown.
+		 * @param divides the list of {@link Divide}s
+		 */
+		public Result(Collection<Divide<T>> divides) {
+			this(divides, -1);
+		}
+
+		/**
+		 * Creates a single thread result without statistics and whose duration is unknown.
+		 * @param divides the list of {@link Divide}s
+		 * @param allocatedBytes the number of bytes allocated during the test, or a negative number if it is unknown.
+		 */
+		public Result(Collection<Divide<T>> divides, long allocatedBytes) {
+			this(divides, allocatedBytes, null, null, 1);
+		}
+
 		/**
 		 * Gets the number of leaves.
 		 * @return a positive long
@@ -26,6 +64,51 @@ public class PerfT<M> {
 		public long getNbLeaves() {
 			return divides.stream().mapToLong(Divide::count).sum();
 		}
+
+		/**
+		 * Gets the number of bytes allocated per leaf.
+		 * @return a positive number, or a negative number if the allocated bytes are unknown or if there's no leaf.
+		 */
+		public double getAllocatedBytesPerLeaf() {
+			final long nbLeaves = getNbLeaves();
+			return allocatedBytes < 0 || nbLeaves == 0 ? -1 : (double) allocatedBytes / nbLeaves;
+		}
+
+		/**
+		 * Gets the number of leaves per second.
+		 * @return a positive number, or a negative number if the duration is unknown.
+		 */
+		public long getNps() {
+			if (duration == null) {
+				return -1;
+			}
+			final long nanos = Math.max(1, duration.toNanos());
+			return (long) (getNbLeaves() * 1_000_000_000.0 / nanos);
+		}
+	}
+
+	/** Sets the transposition table used to cache the subtrees leaf counts.
+	 * <br>The table is used only with boards that implement {@link HashableBoard}.
+	 * <br>A table can be shared by many PerfT instances running concurrently, provided they all work on the same variant.
+	 * @param table a transposition table or null (the default) to visit every node.
+	 * @return this
+	 */
+	public PerfT<M> withTranspositionTable(TranspositionTable table) {
+		this.transpositionTable = table;
+		return this;
+	}
+
+	/** Sets the move classifier used to compute detailed statistics.
+	 * <br>Please note that computing statistics disables the transposition table, the bulk counting and the {@link IntMoveBoard} path,
+	 * as every leaf move has to be classified.
+	 * @param <B> the type of the board. The boards passed to this PerfT should be instances of this type.
+	 * @param classifier a classifier or null (the default) to compute no statistics.
+	 * @return this
+	 */
+	@SuppressWarnings("unchecked")
+	public <B extends IBoard<M>> PerfT<M> withStatistics(MoveClassifier<B, M> classifier) {
+		this.classifier = (MoveClassifier<IBoard<M>, M>) classifier;
+		return this;
 	}
 
 	/**
@@ -35,48 +118,227 @@ public class PerfT<M> {
 	 * @return the result of the test
 	 */
 	public Result<M> divide(final IBoard<M> generator, final int depth) {
+		return divide(generator, depth, null);
+	}
+
+	/**
+	 * Performs a <a href="https://www.chessprogramming.org/Perft">Perft</a> test whose root moves counts are stored, for instance to resume it after an interruption.
+	 * <br>The count of each root move is saved in the store as soon as its subtree is searched, and the root moves already in the store are not searched again.
+	 * <br>If some root moves were found in the store, the duration of the result is unknown.
+	 * <br>Please note that the store is ignored when statistics are computed.
+	 * @param generator the board to run the test on
+	 * @param depth the depth of the search
+	 * @param store the store of the root moves counts of this search (for instance a {@link PerftCheckpoint.Root}), or null to use no store
+	 * @return the result of the test
+	 */
+	public Result<M> divide(final IBoard<M> generator, final int depth, final DivideStore store) {
 		if (depth <= 0) {
             throw new IllegalArgumentException("Search depth MUST be > 0");
 		}
-		final List<M> moves = generator.getMoves();
+		final long start = System.nanoTime();
+		final long allocatedBefore = getAllocatedBytes();
+		final StatisticsCollector statistics = newStatisticsCollector();
+		final DivideStore root = statistics==null ? store : null;
+		final Explorer explorer = new Explorer(generator, depth);
+		final List<M> moves = explorer.getMoves(depth);
 		final List<Divide<M>> divides = new ArrayList<>(moves.size());
-		for (M move : moves) {
-			final Optional<Divide<M>> divide = getPrfT(generator, move, depth - 1);
-			divide.ifPresent(divides::add);
-		}
-		return new Result<>(divides);
-	}
-
-	private Optional<Divide<M>> getPrfT(IBoard<M> moveGenerator, M move, int depth) {
-		final long leaves;
-		if (depth==0 && moveGenerator.isGetMovesLegal()) {
-			leaves = 1;
-		} else {
-			if (moveGenerator.makeMove(move)) {
-				leaves = get(moveGenerator, depth);
-				moveGenerator.unmakeMove();
+		boolean resumed = false;
+		for (int i = 0; i < moves.size(); i++) {
+			final M move = moves.get(i);
+			final String uci = root==null ? null : generator.toUCI(move);
+			long leaves = root==null ? -1 : root.getCount(uci);
+			if (leaves < 0) {
+				leaves = explorer.getLeaves(move, depth - 1);
+				if (root!=null) {
+					root.setCount(uci, leaves);
+				}
 			} else {
-				leaves = 0;
+				resumed = true;
+			}
+			if (leaves != 0) {
+				divides.add(new Divide<>(move, leaves));
 			}
 		}
-		return Optional.ofNullable(leaves == 0 ? null : new Divide<>(move, leaves));
+		final long allocatedAfter = getAllocatedBytes();
+		explorer.flush(statistics);
+		return new Result<>(divides, allocatedBefore < 0 || allocatedAfter < 0 ? -1 : allocatedAfter - allocatedBefore, statistics==null ? null : statistics.get(),
+				resumed ? null : Duration.ofNanos(System.nanoTime() - start), 1);
 	}
-	
-    private long get (IBoard<M> moveGenerator, final int depth) {
-    	if (depth==0) {
+
+    /** Gets the number of leaves of a tree.
+     * @param moveGenerator the board at the root of the tree
+     * @param depth the depth of the tree
+     * @param statistics the collector where to add the statistics of the tree (null if statistics are disabled)
+     * @return the number of leaves
+     */
+    long get (IBoard<M> moveGenerator, final int depth, StatisticsCollector statistics) {
+    	final Explorer explorer = new Explorer(moveGenerator, depth);
+    	final long count = explorer.get(depth, 0);
+    	explorer.flush(statistics);
+    	return count;
+    }
+
+    /** Creates a new statistics collector.
+     * @return a collector or null if statistics are disabled.
+     */
+    StatisticsCollector newStatisticsCollector() {
+    	return classifier==null ? null : new StatisticsCollector();
+    }
+
+    /** Gets the number of bytes allocated by the current thread since it started.
+     * @return a positive number or a negative number if the JVM can't measure it.
+     */
+    static long getAllocatedBytes() {
+    	return THREAD_MX_BEAN == null ? -1 : THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+    }
+
+    private static com.sun.management.ThreadMXBean getThreadMXBean() {
+    	try {
+    		return ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean && bean.isThreadAllocatedMemorySupported() ? bean : null;
+    	} catch (LinkageError e) {
+    		// jdk.management module is not available
+    		return null;
+    	}
+    }
+
+    /** The state of a search.
+     * <br>It owns the buffers reused during the search, so it can't be shared between threads.
+     */
+    private class Explorer {
+    	private final IBoard<M> board;
+    	private final IntMoveBoard<M> intBoard;
+    	private final HashableBoard<M> hashableBoard;
+    	private final BulkCountingBoard<M> bulkCountingBoard;
+    	private final List<List<M>> moveLists;
+    	private final int[] intMoves;
+    	private final long[] counters;
+
+    	private Explorer(IBoard<M> board, int depth) {
+    		this.board = board;
+    		this.counters = classifier==null ? null : new long[StatisticsCollector.SIZE];
+    		this.hashableBoard = counters==null && transpositionTable!=null && board instanceof HashableBoard<M> hashable ? hashable : null;
+    		this.bulkCountingBoard = counters==null && board instanceof BulkCountingBoard<M> bulkCounting ? bulkCounting : null;
+    		this.moveLists = new ArrayList<>(depth+1);
+    		if (counters==null && board instanceof IntMoveBoard<M> intMoveBoard && depth>0) {
+    			// Moves of all plies are written in the same buffer
+    			this.intBoard = intMoveBoard;
+    			this.intMoves = new int[depth*IntMoveBoard.MAX_MOVES];
+    		} else {
+    			this.intBoard = null;
+    			this.intMoves = null;
+    		}
+    		for (int i = 0; i <= depth; i++) {
+    			moveLists.add(new ArrayList<>());
+    		}
+    	}
+
+    	/** Gets the moves available on the board.
+    	 * @param depth the remaining depth. The list returned is reused for every position at this depth.
+    	 * @return a list of moves
+    	 */
+    	private List<M> getMoves(int depth) {
+    		final List<M> moves = moveLists.get(depth);
+    		board.getMoves(moves);
+    		return moves;
+    	}
+
+    	private void flush(StatisticsCollector statistics) {
+    		if (statistics!=null) {
+    			statistics.add(counters);
+    		}
+    	}
+
+    	private long getLeaves(M move, int depth) {
+    		if (depth==0 && counters!=null) {
+    			return countLeaf(move);
+    		}
+    		if (depth==0 && board.isGetMovesLegal()) {
+    			return 1;
+    		}
+    		if (!board.makeMove(move)) {
+    			return 0;
+    		}
+    		final long leaves = get(depth, 0);
+    		board.unmakeMove();
+    		return leaves;
+    	}
+
+    	private long get(final int depth, int offset) {
+    		if (depth==0) {
+    			return 1;
+    		}
+    		if (depth==1 && bulkCountingBoard!=null) {
+    			return bulkCountingBoard.countLegalMoves();
+    		}
+    		if (depth>1 && hashableBoard!=null) {
+    			final long key = hashableBoard.getHashKey();
+    			long count = transpositionTable.get(key, depth);
+    			if (count<0) {
+    				count = visit(depth, offset);
+    				transpositionTable.put(key, depth, count);
+    			}
+    			return count;
+    		}
+    		return visit(depth, offset);
+    	}
+
+    	private long visit(final int depth, int offset) {
+    		return intBoard==null ? visitMoves(depth) : visitIntMoves(depth, offset);
+    	}
+
+    	private long visitMoves(final int depth) {
+    		final List<M> moves = getMoves(depth);
+    		if (depth==1 && counters!=null) {
+    			long count = 0;
+    			for (int i = 0; i < moves.size(); i++) {
+    				count += countLeaf(moves.get(i));
+    			}
+    			return count;
+    		}
+    		if (depth==1 && board.isGetMovesLegal()) {
+    			return moves.size();
+    		}
+    		long count = 0;
+    		for (int i = 0; i < moves.size(); i++) {
+    			if (board.makeMove(moves.get(i))) {
+    				count += get(depth-1, 0);
+    				board.unmakeMove();
+    			}
+    		}
+    		return count;
+    	}
+
+    	/** Classifies a leaf move.
+    	 * @return 1 if the move is legal, 0 if not.
+    	 */
+    	private int countLeaf(M move) {
+    		if (!board.isLegal(move)) {
+    			return 0;
+    		}
+    		// Bits that are not MoveClassifier constants are ignored
+    		int flags = classifier.classify(board, move) & ((1 << StatisticsCollector.SIZE) - 1);
+    		for (int i = 0; flags != 0; i++) {
+    			if ((flags & 1) != 0) {
+    				counters[i]++;
+    			}
+    			flags >>>= 1;
+    		}
     		return 1;
     	}
-		final List<M> moves = moveGenerator.getMoves();
-		if (depth==1 && moveGenerator.isGetMovesLegal()) {
-			return moves.size();
-		}
-		long count = 0;
-		for (M move : moves) {
-            if (moveGenerator.makeMove(move)) {
-	            count += get(moveGenerator, depth-1);
-	            moveGenerator.unmakeMove();
-            }
-		}
-        return count;
+
+    	private long visitIntMoves(final int depth, int offset) {
+    		final int end = offset + intBoard.getMoves(intMoves, offset);
+    		if (depth==1 && intBoard.isGetMovesLegal()) {
+    			return (long)end - offset;
+    		}
+    		long count = 0;
+    		for (int i = offset; i < end; i++) {
+    			if (intBoard.makeMove(intMoves[i])) {
+    				count += get(depth-1, end);
+    				intBoard.unmakeMove();
+    			}
+    		}
+    		return count;
+    	}
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,111 @@
+package com.fathzer.chess.utils.test.helper.perft;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+
+import com.fathzer.chess.utils.model.IBoard;
+import com.fathzer.chess.utils.model.TestAdapter;
+import com.fathzer.chess.utils.model.Variant;
+
+/** A class that finds the faulty position of a failed <a href="https://www.chessprogramming.org/Perft">Perft</a> test.
+ * <br>It compares the <a href="https://www.chessprogramming.org/Perft#Divide">divides</a> of a tested adapter with the ones of a reference adapter,
+ * then descends into a move whose counts are different, until it finds a position where the two adapters do not generate the same moves.
+ * <br>Moves whose counts are equal are never explored again, and each divide is computed in parallel with a {@link ParallelPerfT}.
+ * Moves are compared using their UCI representation, so both adapters should use the same UCI notation.
+ */
+public class PerftBisector {
+	/** A faulty position.
+	 * @param fen the FEN of the root position
+	 * @param path the moves, in UCI format, that lead from the root position to the faulty position.
+	 * @param missingMoves the moves, in UCI format, generated by the reference adapter, but not by the tested one.
+	 * @param unexpectedMoves the moves, in UCI format, generated by the tested adapter, but not by the reference one.
+	 */
+	public record Fault(String fen, List<String> path, List<String> missingMoves, List<String> unexpectedMoves) {
+		@Override
+		public String toString() {
+			return String.format("Fen: %s, moves: %s, missing moves: %s, unexpected moves: %s", fen, path, missingMoves, unexpectedMoves);
+		}
+	}
+
+	private final TestAdapter<?, ?> adapter;
+	private final TestAdapter<?, ?> reference;
+	private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+	/** Constructor.
+	 * @param adapter the tested adapter
+	 * @param reference the reference adapter
+	 */
+	public PerftBisector(TestAdapter<?, ?> adapter, TestAdapter<?, ?> reference) {
+		this.adapter = adapter;
+		this.reference = reference;
+	}
+
+	/** Sets the pool used to compute the divides.
+	 * <br>By default, the {@link ForkJoinPool#commonPool() common pool} is used.
+	 * @param pool a pool
+	 * @return this
+	 */
+	public PerftBisector withPool(ForkJoinPool pool) {
+		this.pool = pool;
+		return this;
+	}
+
+	/** Searches the faulty position.
+	 * @param fen The FEN of the root position
+	 * @param variant The variant of the root position
+	 * @param depth The depth of the failed perft
+	 * @return the faulty position, or an empty optional if both adapters return the same result
+	 * @throws IllegalArgumentException if depth &lt;= 0
+	 */
+	public Optional<Fault> bisect(String fen, Variant variant, int depth) {
+		if (depth <= 0) {
+			throw new IllegalArgumentException("Search depth MUST be > 0");
+		}
+		final List<String> path = new ArrayList<>(depth);
+		for (int remaining = depth; remaining > 0; remaining--) {
+			final Map<String, Long> tested = divide(adapter, fen, variant, path, remaining);
+			final Map<String, Long> expected = divide(reference, fen, variant, path, remaining);
+			final List<String> missing = expected.keySet().stream().filter(m -> !tested.containsKey(m)).toList();
+			final List<String> unexpected = tested.keySet().stream().filter(m -> !expected.containsKey(m)).toList();
+			if (!missing.isEmpty() || !unexpected.isEmpty()) {
+				return Optional.of(new Fault(fen, List.copyOf(path), missing, unexpected));
+			}
+			// Descend into the smallest mismatching subtree, it is the cheapest to explore
+			String faulty = null;
+			long faultyCount = Long.MAX_VALUE;
+			for (Entry<String, Long> entry : expected.entrySet()) {
+				if (!entry.getValue().equals(tested.get(entry.getKey())) && entry.getValue() < faultyCount) {
+					faulty = entry.getKey();
+					faultyCount = entry.getValue();
+				}
+			}
+			if (faulty == null) {
+				return Optional.empty();
+			}
+			path.add(faulty);
+		}
+		return Optional.empty();
+	}
+
+	@SuppressWarnings("unchecked")
+	private <B extends IBoard<M>, M> Map<String, Long> divide(TestAdapter<?, ?> adapter, String fen, Variant variant, List<String> path, int depth) {
+		final BoardForker<M> root = BoardForker.replay((TestAdapter<B, M>) adapter, fen, variant);
+		final List<String> rootPath = List.copyOf(path);
+		final IBoard<M> board = root.fork(null, rootPath);
+		final BoardForker<M> forker = BoardForker.forkable((b, moves) -> {
+			final List<String> fullPath = new ArrayList<>(rootPath.size() + moves.size());
+			fullPath.addAll(rootPath);
+			fullPath.addAll(moves);
+			return root.fork(b, fullPath);
+		});
+		final PerfT.Result<M> result = new ParallelPerfT<>(forker).withPool(pool).divide(board, depth);
+		final Map<String, Long> divides = new LinkedHashMap<>();
+		result.divides().forEach(d -> divides.put(board.toUCI(d.move()), d.count()));
+		return divides;
+	}
+}
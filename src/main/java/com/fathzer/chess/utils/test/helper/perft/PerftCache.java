@@ -0,0 +1,153 @@
+package com.fathzer.chess.utils.test.helper.perft;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.fathzer.chess.utils.model.Variant;
+import com.fathzer.chess.utils.test.helper.io.BinaryFiles;
+
+/** A persistent cache of perft results, stored in a memory mapped file.
+ * <br>The cache stores the leaf counts of the root moves of perft searches (see {@link PerfT#divide(com.fathzer.chess.utils.model.IBoard, int, DivideStore)}),
+ * keyed by the position's FEN, variant, depth and root move. It is tied to a fingerprint of the tested move generator (for instance its version):
+ * when the cache file is opened with another fingerprint, it is cleared.
+ * <br>The file is an open addressing hash table of 16 bytes entries (the 64 bits key of the entry xored with its count, then the count), after a
+ * {@link BinaryFiles header} that contains the "PRFC" magic number, the version of the format, the number of entries, an unused int and the 64 bits hash of the fingerprint.
+ * So, like in a {@link TranspositionTable}, an entry corrupted by concurrent writes, or by a crash, is simply seen as missing, and perft searches running in parallel
+ * can share the same cache without locking.
+ * <br>When the table is full, new entries replace old ones.
+ */
+public class PerftCache implements Closeable {
+	/** The size of the file header. */
+	public static final int HEADER_SIZE = 24;
+	private static final int MAGIC = 0x50524643;
+	private static final int VERSION = 1;
+	private static final int ENTRY_SIZE = 2 * Long.BYTES;
+	private static final int MAX_ENTRIES = 1 << 26;
+	private static final int PROBES = 4;
+
+	private final FileChannel channel;
+	private final MappedByteBuffer buffer;
+	private final int mask;
+
+	private PerftCache(FileChannel channel, MappedByteBuffer buffer, int entries) {
+		this.channel = channel;
+		this.buffer = buffer;
+		this.mask = entries - 1;
+	}
+
+	/** Opens a cache file.
+	 * @param path The file path. It is created if it does not exist.
+	 * @param fingerprint The fingerprint of the move generator. If it differs from the fingerprint of the file, or if the size differs, the file is cleared.
+	 * @param sizeInMB the size of the cache in MB. The number of entries is rounded down to a power of 2.
+	 * @return a new cache
+	 * @throws IOException if the file can't be opened
+	 * @throws IllegalArgumentException if size is not strictly positive
+	 */
+	public static PerftCache open(Path path, String fingerprint, int sizeInMB) throws IOException {
+		if (sizeInMB <= 0) {
+			throw new IllegalArgumentException("Size MUST be > 0");
+		}
+		final int entries = Integer.highestOneBit((int) Math.min((long) sizeInMB * 1024 * 1024 / ENTRY_SIZE, MAX_ENTRIES));
+		final long fingerprintHash = hash(fingerprint);
+		final long fileSize = HEADER_SIZE + (long) entries * ENTRY_SIZE;
+		final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			final ByteBuffer header = BinaryFiles.readHeader(channel, HEADER_SIZE, MAGIC);
+			final boolean valid = channel.size() == fileSize && header != null && header.getInt() == VERSION
+					&& header.getInt() == entries && header.getInt() == 0 && header.getLong() == fingerprintHash;
+			if (!valid) {
+				// Clear the file
+				channel.truncate(0);
+			}
+			final MappedByteBuffer buffer = channel.map(MapMode.READ_WRITE, 0, fileSize);
+			if (!valid) {
+				buffer.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, entries).putInt(12, 0).putLong(16, fingerprintHash);
+			}
+			return new PerftCache(channel, buffer, entries);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/** Gets the root of a perft search.
+	 * @param fen the FEN of the root position
+	 * @param variant the variant of the position
+	 * @param depth the depth of the search
+	 * @return the store of the root moves counts of this search
+	 */
+	public DivideStore getRoot(String fen, Variant variant, int depth) {
+		final String prefix = RootKeys.getPrefix(fen, variant, depth);
+		return new DivideStore() {
+			@Override
+			public long getCount(String move) {
+				return get(hash(prefix + move));
+			}
+
+			@Override
+			public void setCount(String move, long count) {
+				put(hash(prefix + move), count);
+			}
+		};
+	}
+
+	private long get(long key) {
+		int index = (int) key & mask;
+		for (int i = 0; i < PROBES; i++) {
+			final int offset = HEADER_SIZE + index * ENTRY_SIZE;
+			final long count = buffer.getLong(offset + Long.BYTES);
+			if ((buffer.getLong(offset) ^ count) == key) {
+				return count;
+			}
+			index = (index + 1) & mask;
+		}
+		return -1;
+	}
+
+	private void put(long key, long count) {
+		final int first = (int) key & mask;
+		// Use the entry of the key, or the first free one. If all the probed entries are used, replace the first one
+		int target = first;
+		for (int i = 0; i < PROBES; i++) {
+			final int index = (first + i) & mask;
+			final int offset = HEADER_SIZE + index * ENTRY_SIZE;
+			final long data = buffer.getLong(offset + Long.BYTES);
+			final long stored = buffer.getLong(offset) ^ data;
+			if (stored == key || (stored == 0 && data == 0)) {
+				target = index;
+				break;
+			}
+		}
+		final int offset = HEADER_SIZE + target * ENTRY_SIZE;
+		buffer.putLong(offset, key ^ count);
+		buffer.putLong(offset + Long.BYTES, count);
+	}
+
+	/** Computes the 64 bits hash of a String.
+	 * <br>It is the <a href="https://en.wikipedia.org/wiki/Fowler%E2%80%93Noll%E2%80%93Vo_hash_function">FNV-1a</a> hash of its UTF-8 bytes, mixed with the
+	 * MurmurHash3 finalizer, so its low bits can be used as an index. 0 is never returned, as it is the key of empty entries.
+	 */
+	static long hash(String value) {
+		long hash = 0xcbf29ce484222325L;
+		for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+			hash = (hash ^ (b & 0xFF)) * 0x100000001b3L;
+		}
+		hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+		hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash == 0 ? 1 : hash;
+	}
+
+	@Override
+	public void close() throws IOException {
+		buffer.force();
+		channel.close();
+	}
+}
@@ -0,0 +1,124 @@
+package com.fathzer.chess.utils.test.helper.perft;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fathzer.chess.utils.model.Variant;
+
+/** A file that records the leaf counts of the root moves of long perft searches, in order to resume them after an interruption.
+ * <br>Each time the subtree of a root move is completed, its count is appended to the file. When the file is opened again, the recorded
+ * subtrees are not searched again (see {@link PerfT#divide(com.fathzer.chess.utils.model.IBoard, int, DivideStore)}).
+ * <br>The file is flushed after every count (root moves are completed rarely enough for this to be cheap), so an interruption loses no completed subtree.
+ * A last line truncated by a crash is ignored.
+ * <br>The roots of a checkpoint can be updated by concurrent searches.
+ */
+public class PerftCheckpoint implements Closeable {
+	private static final char SEPARATOR = RootKeys.SEPARATOR;
+
+	/** The root of a perft search in a checkpoint. */
+	public class Root implements DivideStore {
+		private final String prefix;
+
+		private Root(String fen, Variant variant, int depth) {
+			this.prefix = RootKeys.getPrefix(fen, variant, depth);
+		}
+
+		@Override
+		public long getCount(String move) {
+			final Long count = counts.get(prefix + move);
+			return count == null ? -1 : count;
+		}
+
+		/** {@inheritDoc}
+		 * @throws UncheckedIOException if the count can't be written
+		 */
+		@Override
+		public void setCount(String move, long count) {
+			final String key = prefix + move;
+			if (counts.put(key, count) == null) {
+				write(key + SEPARATOR + count);
+			}
+		}
+	}
+
+	private final Map<String, Long> counts;
+	private final BufferedWriter writer;
+
+	private PerftCheckpoint(Map<String, Long> counts, BufferedWriter writer) {
+		this.counts = counts;
+		this.writer = writer;
+	}
+
+	/** Opens a checkpoint file.
+	 * @param path The file path. It is created if it does not exist.
+	 * @return a new checkpoint that contains the counts recorded in the file
+	 * @throws IOException if the file can't be read or opened
+	 */
+	public static PerftCheckpoint open(Path path) throws IOException {
+		final Map<String, Long> counts = new ConcurrentHashMap<>();
+		final String content = Files.exists(path) ? Files.readString(path, StandardCharsets.UTF_8) : "";
+		// A last line with no line separator was truncated by an interruption (even if it looks valid, its count may be truncated)
+		final boolean truncated = !content.isEmpty() && content.charAt(content.length() - 1) != '\n';
+		final List<String> lines = content.lines().toList();
+		read(truncated ? lines.subList(0, lines.size() - 1) : lines, counts);
+		final BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		if (truncated) {
+			writer.newLine();
+		}
+		return new PerftCheckpoint(counts, writer);
+	}
+
+	private static void read(List<String> lines, Map<String, Long> counts) {
+		for (String line : lines) {
+			final int index = line.lastIndexOf(SEPARATOR);
+			if (index > 0 && index < line.length() - 1 && line.chars().filter(c -> c == SEPARATOR).count() == 4) {
+				try {
+					counts.put(line.substring(0, index), Long.parseLong(line.substring(index + 1)));
+				} catch (NumberFormatException e) {
+					// Corrupted line
+				}
+			}
+		}
+	}
+
+	/** Gets the root of a perft search.
+	 * @param fen the FEN of the root position
+	 * @param variant the variant of the position
+	 * @param depth the depth of the search
+	 * @return a root
+	 */
+	public Root getRoot(String fen, Variant variant, int depth) {
+		return new Root(fen, variant, depth);
+	}
+
+	/** Gets the number of recorded counts.
+	 * @return a positive or null int
+	 */
+	public int size() {
+		return counts.size();
+	}
+
+	private synchronized void write(String line) {
+		try {
+			writer.write(line);
+			writer.newLine();
+			writer.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		writer.close();
+	}
+}
@@ -0,0 +1,238 @@
+package com.fathzer.chess.utils.test.helper.perft;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import com.fathzer.chess.utils.model.Variant;
+
+/** A machine readable report of perft tests.
+ * <br>It records the wall time, leaves, NPS and threads of each tested position, and writes them in JSON or CSV format,
+ * for instance to trend the move generation throughput over time.
+ * <br>The totals of a JSON report are <code>sequentialDurationNanos</code>, the sum of the durations of the positions, and <code>sequentialNps</code>,
+ * the NPS of the positions if they were tested one after the other. As positions are usually tested in parallel, they are not the wall clock duration and throughput of the suite.
+ * <br>Entries can be added concurrently.
+ * <br>Reports written by different JVMs (for instance by the shards of a suite, see {@link Shard}) can be merged with {@link #merge(Collection)}
+ * or by running this class: <code>java com.fathzer.chess.utils.test.helper.perft.PerftReport target source1 source2 ...</code>
+ */
+public class PerftReport {
+	/** A report entry.
+	 * @param fen the FEN of the position
+	 * @param variant the variant of the position
+	 * @param depth the depth of the test
+	 * @param leaves the number of leaves
+	 * @param duration the wall clock duration of the test
+	 * @param threads the number of threads used by the test
+	 */
+	public record Entry(String fen, Variant variant, int depth, long leaves, Duration duration, int threads) {
+		/** Gets the number of leaves per second.
+		 * @return a positive long
+		 */
+		public long getNps() {
+			return (long) (leaves * 1_000_000_000.0 / Math.max(1, duration.toNanos()));
+		}
+	}
+
+	/** The format of a report file. */
+	public enum Format {
+		/** A JSON object with an <code>entries</code> array. */
+		JSON,
+		/** A CSV file with a header line. */
+		CSV;
+
+		/** Gets the format of a file from its extension.
+		 * @param path a path
+		 * @return CSV if the file name ends with <code>.csv</code> (case insensitive), JSON otherwise.
+		 */
+		public static Format of(Path path) {
+			return path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv") ? CSV : JSON;
+		}
+	}
+
+	private static final String STRING = "\"((?:[^\"\\\\]|\\\\.)*)\"";
+	private static final Pattern JSON_ADAPTER = Pattern.compile("\"adapter\":"+STRING);
+	private static final Pattern JSON_ENTRY = Pattern.compile("\\{\"fen\":"+STRING+",\"variant\":\"(\\w+)\",\"depth\":(\\d+),\"leaves\":(\\d+),"+
+			"\"durationNanos\":(\\d+),\"nps\":\\d+,\"threads\":(\\d+)\\}");
+
+	private final String adapter;
+	private final List<Entry> entries = new ArrayList<>();
+
+	/** Constructor.
+	 * @param adapter the name of the tested adapter
+	 */
+	public PerftReport(String adapter) {
+		this.adapter = adapter;
+	}
+
+	/** Merges reports.
+	 * @param reports the reports to merge
+	 * @return a new report that contains the entries of all the reports. Its adapter is the one of the first report.
+	 */
+	public static PerftReport merge(Collection<PerftReport> reports) {
+		final PerftReport result = new PerftReport(reports.isEmpty() ? "" : reports.iterator().next().adapter);
+		reports.forEach(r -> r.getEntries().forEach(result::add));
+		return result;
+	}
+
+	/** Merges report files.
+	 * @param args the path of the merged report, followed by the paths of the reports to merge
+	 * @throws IOException if a file can't be read or written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: PerftReport target source1 source2 ...");
+			return;
+		}
+		final List<PerftReport> reports = new ArrayList<>(args.length - 1);
+		for (String source : Arrays.asList(args).subList(1, args.length)) {
+			reports.add(read(Path.of(source)));
+		}
+		merge(reports).write(Path.of(args[0]));
+	}
+
+	/** Reads a report file written by {@link #write(Path)}.
+	 * @param path the file path. Its format is deduced from its extension (see {@link Format#of(Path)}).
+	 * @return a new report (CSV files do not contain the adapter name, the adapter of the report is then an empty String)
+	 * @throws IOException if the file can't be read or is not a valid report
+	 */
+	public static PerftReport read(Path path) throws IOException {
+		try (Stream<String> lines = Files.lines(path, StandardCharsets.UTF_8)) {
+			return Format.of(path) == Format.CSV ? readCSV(lines.skip(1).toList()) : readJSON(lines.toList());
+		}
+	}
+
+	private static PerftReport readCSV(List<String> lines) throws IOException {
+		final PerftReport report = new PerftReport("");
+		for (String line : lines) {
+			if (line.isBlank()) {
+				continue;
+			}
+			final int end = line.lastIndexOf("\",");
+			final String[] fields = end < 1 ? new String[0] : line.substring(end + 2).split(",");
+			if (line.charAt(0) != '"' || fields.length != 6) {
+				throw new IOException("Invalid CSV report line: " + line);
+			}
+			report.add(new Entry(line.substring(1, end).replace("\"\"", "\""), Variant.valueOf(fields[0]), Integer.parseInt(fields[1]), Long.parseLong(fields[2]),
+					Duration.ofNanos(Long.parseLong(fields[3])), Integer.parseInt(fields[5])));
+		}
+		return report;
+	}
+
+	private static PerftReport readJSON(List<String> lines) throws IOException {
+		final Matcher adapter = lines.isEmpty() ? null : JSON_ADAPTER.matcher(lines.get(0));
+		if (adapter == null || !adapter.find()) {
+			throw new IOException("Invalid JSON report");
+		}
+		final PerftReport report = new PerftReport(unescape(adapter.group(1)));
+		for (String line : lines.subList(1, lines.size())) {
+			final Matcher entry = JSON_ENTRY.matcher(line);
+			if (entry.find()) {
+				report.add(new Entry(unescape(entry.group(1)), Variant.valueOf(entry.group(2)), Integer.parseInt(entry.group(3)), Long.parseLong(entry.group(4)),
+						Duration.ofNanos(Long.parseLong(entry.group(5))), Integer.parseInt(entry.group(6))));
+			}
+		}
+		return report;
+	}
+
+	/** Adds a result to this report.
+	 * @param fen the FEN of the tested position
+	 * @param variant the variant of the position
+	 * @param depth the depth of the test
+	 * @param result the result of the test. Results with an unknown duration are ignored.
+	 */
+	public void add(String fen, Variant variant, int depth, PerfT.Result<?> result) {
+		if (result.duration() != null) {
+			add(new Entry(fen.trim(), variant, depth, result.getNbLeaves(), result.duration(), result.threads()));
+		}
+	}
+
+	/** Adds an entry to this report.
+	 * @param entry an entry
+	 */
+	public void add(Entry entry) {
+		synchronized (entries) {
+			entries.add(entry);
+		}
+	}
+
+	/** Gets the entries of this report.
+	 * @return a copy of the entries, in the order they were added.
+	 */
+	public List<Entry> getEntries() {
+		synchronized (entries) {
+			return new ArrayList<>(entries);
+		}
+	}
+
+	/** Writes this report to a file.
+	 * @param path the file path. Its format is deduced from its extension (see {@link Format#of(Path)}).
+	 * @throws UncheckedIOException if the file can't be written
+	 */
+	public void write(Path path) {
+		try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			write(writer, Format.of(path));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/** Writes this report.
+	 * @param writer the writer where to write the report
+	 * @param format the format of the report
+	 * @throws IOException if a problem occurs while writing
+	 */
+	public void write(Writer writer, Format format) throws IOException {
+		if (format == Format.CSV) {
+			writeCSV(writer);
+		} else {
+			writeJSON(writer);
+		}
+	}
+
+	private void writeCSV(Writer writer) throws IOException {
+		writer.write(String.format("fen,variant,depth,leaves,durationNanos,nps,threads%n"));
+		for (Entry entry : getEntries()) {
+			writer.write(String.format(Locale.ROOT, "\"%s\",%s,%d,%d,%d,%d,%d%n", entry.fen().replace("\"", "\"\""), entry.variant(), entry.depth(),
+					entry.leaves(), entry.duration().toNanos(), entry.getNps(), entry.threads()));
+		}
+	}
+
+	private void writeJSON(Writer writer) throws IOException {
+		final List<Entry> all = getEntries();
+		final long leaves = all.stream().mapToLong(Entry::leaves).sum();
+		final long nanos = all.stream().mapToLong(e -> e.duration().toNanos()).sum();
+		writer.write(String.format(Locale.ROOT, "{\"adapter\":\"%s\",\"timestamp\":\"%s\",\"leaves\":%d,\"sequentialDurationNanos\":%d,\"sequentialNps\":%d,\"entries\":[",
+				escape(adapter), Instant.now(), leaves, nanos, (long) (leaves * 1_000_000_000.0 / Math.max(1, nanos))));
+		for (int i = 0; i < all.size(); i++) {
+			final Entry entry = all.get(i);
+			if (i > 0) {
+				writer.write(',');
+			}
+			writer.write(String.format(Locale.ROOT, "%n{\"fen\":\"%s\",\"variant\":\"%s\",\"depth\":%d,\"leaves\":%d,\"durationNanos\":%d,\"nps\":%d,\"threads\":%d}",
+					escape(entry.fen()), entry.variant(), entry.depth(), entry.leaves(), entry.duration().toNanos(), entry.getNps(), entry.threads()));
+		}
+		writer.write(String.format("%n]}%n"));
+	}
+
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+
+	private static String unescape(String value) {
+		return value.replace("\\\"", "\"").replace("\\\\", "\\");
+	}
+}
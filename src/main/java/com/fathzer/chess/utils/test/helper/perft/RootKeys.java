@@ -0,0 +1,25 @@
+package com.fathzer.chess.utils.test.helper.perft;
+
+import com.fathzer.chess.utils.model.Variant;
+
+/** The keys of the root moves of perft searches, used by the stores of root move counts.
+ * <br>A key is the FEN, the variant, the depth and the UCI move, separated by {@value #SEPARATOR}.
+ */
+final class RootKeys {
+	/** The separator of the fields of a key. */
+	static final char SEPARATOR = ';';
+
+	private RootKeys() {
+		super();
+	}
+
+	/** Gets the prefix of the keys of a search.
+	 * @param fen the FEN of the root position
+	 * @param variant the variant of the position
+	 * @param depth the depth of the search
+	 * @return the prefix of the keys, to which the moves are appended
+	 */
+	static String getPrefix(String fen, Variant variant, int depth) {
+		return fen.trim() + SEPARATOR + variant + SEPARATOR + depth + SEPARATOR;
+	}
+}
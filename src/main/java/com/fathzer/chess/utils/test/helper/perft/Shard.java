@@ -0,0 +1,82 @@
+package com.fathzer.chess.utils.test.helper.perft;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+
+/** A shard of a perft suite.
+ * <br>Shards allow to split a suite between several JVMs or machines. Positions are deterministically assigned to the shards
+ * in order to balance their costs (usually their expected number of leaves), using the
+ * <a href="https://en.wikipedia.org/wiki/Longest-processing-time-first_scheduling">longest processing time first</a> algorithm.
+ * So all the shards of a suite, computed from the same costs, are disjoint and cover the whole suite.
+ * @param index The index of this shard, from 1 to count
+ * @param count The number of shards
+ */
+public record Shard(int index, int count) {
+	/** Constructor.
+	 * @param index The index of this shard, from 1 to count
+	 * @param count The number of shards
+	 * @throws IllegalArgumentException if count &lt;= 0 or index is not in [1, count]
+	 */
+	public Shard {
+		if (count <= 0 || index <= 0 || index > count) {
+			throw new IllegalArgumentException("Invalid shard " + index + "/" + count);
+		}
+	}
+
+	/** Parses a shard.
+	 * @param value a String in the <i>index/count</i> format (for instance 3/16)
+	 * @return a shard
+	 * @throws IllegalArgumentException if the value is not valid
+	 */
+	public static Shard parse(String value) {
+		final int slash = value.indexOf('/');
+		if (slash < 0) {
+			throw new IllegalArgumentException("Invalid shard " + value + ", expected format is index/count");
+		}
+		try {
+			return new Shard(Integer.parseInt(value.substring(0, slash).trim()), Integer.parseInt(value.substring(slash + 1).trim()));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid shard " + value + ", expected format is index/count", e);
+		}
+	}
+
+	/** Assigns costs to the shards.
+	 * @param costs The costs of the positions
+	 * @param count The number of shards
+	 * @return the shard index (from 1 to count) of each position
+	 */
+	public static int[] assign(long[] costs, int count) {
+		final Integer[] byCost = IntStream.range(0, costs.length).boxed().toArray(Integer[]::new);
+		Arrays.sort(byCost, Comparator.<Integer>comparingLong(i -> costs[i]).reversed().thenComparingInt(i -> i));
+		final long[] loads = new long[count];
+		final PriorityQueue<Integer> shards = new PriorityQueue<>(Comparator.<Integer>comparingLong(s -> loads[s]).thenComparingInt(s -> s));
+		for (int i = 0; i < count; i++) {
+			shards.add(i);
+		}
+		final int[] result = new int[costs.length];
+		for (int position : byCost) {
+			final int shard = shards.poll();
+			result[position] = shard + 1;
+			loads[shard] += Math.max(0, costs[position]);
+			shards.add(shard);
+		}
+		return result;
+	}
+
+	/** Selects the positions of this shard.
+	 * @param keys The keys of the positions (for instance their line numbers)
+	 * @param costs The costs of the positions
+	 * @return The sorted keys of the positions assigned to this shard
+	 */
+	public long[] select(long[] keys, long[] costs) {
+		final int[] shards = assign(costs, count);
+		return IntStream.range(0, keys.length).filter(i -> shards[i] == index).mapToLong(i -> keys[i]).sorted().toArray();
+	}
+
+	@Override
+	public String toString() {
+		return index + "/" + count;
+	}
+}
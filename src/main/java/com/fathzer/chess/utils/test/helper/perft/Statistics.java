@@ -0,0 +1,45 @@
+package com.fathzer.chess.utils.test.helper.perft;
+
+/** Detailed <a href="https://www.chessprogramming.org/Perft_Results">perft statistics</a>.
+ * <br>Each number is the number of leaf moves of a given kind (see {@link com.fathzer.chess.utils.model.MoveClassifier}).
+ * @param captures the number of captures, including en passant captures
+ * @param enPassants the number of en passant captures
+ * @param castles the number of castling moves
+ * @param promotions the number of promotions
+ * @param checks the number of checks, including discovered, double checks and checkmates
+ * @param discoveredChecks the number of discovered checks
+ * @param doubleChecks the number of double checks
+ * @param checkmates the number of checkmates
+ */
+public record Statistics(long captures, long enPassants, long castles, long promotions, long checks, long discoveredChecks, long doubleChecks, long checkmates) {
+	private static final String[] HEADERS = {"Captures", "E.p.", "Castles", "Promotions", "Checks", "Discovered checks", "Double Checks", "Checkmates"};
+
+	/** Creates statistics from counters.
+	 * @param counters the counters, indexed by the position of the flag's bit in {@link com.fathzer.chess.utils.model.MoveClassifier}
+	 * @return a new instance
+	 */
+	static Statistics of(long[] counters) {
+		return new Statistics(counters[0], counters[1], counters[2], counters[3], counters[4], counters[5], counters[6], counters[7]);
+	}
+
+	/** Gets the statistics as a two lines table (headers and values).
+	 * @return a String
+	 */
+	@Override
+	public String toString() {
+		final long[] values = {captures, enPassants, castles, promotions, checks, discoveredChecks, doubleChecks, checkmates};
+		final StringBuilder headers = new StringBuilder();
+		final StringBuilder line = new StringBuilder();
+		for (int i = 0; i < HEADERS.length; i++) {
+			final String value = Long.toString(values[i]);
+			final int width = Math.max(HEADERS[i].length(), value.length());
+			headers.append(String.format("%-"+width+"s", HEADERS[i]));
+			line.append(String.format("%"+width+"s", value));
+			if (i < HEADERS.length - 1) {
+				headers.append(" | ");
+				line.append(" | ");
+			}
+		}
+		return headers+"\n"+line;
+	}
+}
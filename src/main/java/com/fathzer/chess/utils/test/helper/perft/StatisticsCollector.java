@@ -0,0 +1,39 @@
+package com.fathzer.chess.utils.test.helper.perft;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** A thread safe collector of {@link Statistics}.
+ * <br>Searches count in their own local counters, then add them once to the collector, so parallel searches don't contend on shared counters.
+ */
+class StatisticsCollector {
+	/** The number of counters. */
+	static final int SIZE = 8;
+
+	private final LongAdder[] adders = new LongAdder[SIZE];
+
+	StatisticsCollector() {
+		for (int i = 0; i < SIZE; i++) {
+			adders[i] = new LongAdder();
+		}
+	}
+
+	/** Adds counters to this collector.
+	 * @param counters the counters, indexed by the position of the flag's bit in {@link com.fathzer.chess.utils.model.MoveClassifier}
+	 */
+	void add(long[] counters) {
+		for (int i = 0; i < SIZE; i++) {
+			adders[i].add(counters[i]);
+		}
+	}
+
+	/** Gets the collected statistics.
+	 * @return a new instance
+	 */
+	Statistics get() {
+		final long[] counters = new long[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			counters[i] = adders[i].sum();
+		}
+		return Statistics.of(counters);
+	}
+}
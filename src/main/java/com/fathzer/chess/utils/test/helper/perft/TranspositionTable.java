@@ -0,0 +1,79 @@
+package com.fathzer.chess.utils.test.helper.perft;
+
+import java.util.Arrays;
+
+/** A fixed size <a href="https://www.chessprogramming.org/Transposition_Table">transposition table</a> that stores perft leaf counts.
+ * <br>Entries are stored in a primitive array and the table can be shared by many threads without locking: each entry stores its key xored with its data,
+ * so an entry corrupted by concurrent writes is simply seen as missing (see <a href="https://www.chessprogramming.org/Shared_Hash_Table#Lockless">lockless hashing</a>).
+ * <br>The table is organized in buckets of two entries. The first one keeps the deepest result, the second one always keeps the last result.
+ */
+public class TranspositionTable {
+	private static final int BYTES_PER_BUCKET = 4 * Long.BYTES;
+	private static final int MAX_DEPTH = 0xFF;
+	private static final int DEPTH_BITS = 8;
+	private static final int MAX_BUCKETS = 1 << 28;
+
+	private final long[] table;
+	private final int mask;
+
+	/** Constructor.
+	 * @param sizeInMB the size of the table in MB. The number of buckets is rounded down to a power of 2.
+	 * @throws IllegalArgumentException if size is not strictly positive
+	 */
+	public TranspositionTable(int sizeInMB) {
+		if (sizeInMB <= 0) {
+			throw new IllegalArgumentException("Size MUST be > 0");
+		}
+		final long maxBuckets = Math.min((long)sizeInMB * 1024 * 1024 / BYTES_PER_BUCKET, MAX_BUCKETS);
+		final int buckets = Integer.highestOneBit((int) maxBuckets);
+		this.table = new long[buckets * 4];
+		this.mask = buckets - 1;
+	}
+
+	/** Gets the number of leaves stored for a position.
+	 * @param key the position's hash key
+	 * @param depth the depth
+	 * @return the number of leaves or a negative number if the table does not contain it.
+	 */
+	public long get(long key, int depth) {
+		final int index = index(key);
+		long data = table[index + 1];
+		if ((table[index] ^ data) == key && (int)(data & MAX_DEPTH) == depth) {
+			return data >>> DEPTH_BITS;
+		}
+		data = table[index + 3];
+		if ((table[index + 2] ^ data) == key && (int)(data & MAX_DEPTH) == depth) {
+			return data >>> DEPTH_BITS;
+		}
+		return -1;
+	}
+
+	/** Stores the number of leaves of a position.
+	 * <br>Results with a depth greater than 255 or a count greater than 2<sup>56</sup>-1 are ignored.
+	 * @param key the position's hash key
+	 * @param depth the depth
+	 * @param count the number of leaves
+	 */
+	public void put(long key, int depth, long count) {
+		if (depth > MAX_DEPTH || (count >>> (Long.SIZE - DEPTH_BITS)) != 0) {
+			return;
+		}
+		final long data = (count << DEPTH_BITS) | depth;
+		int index = index(key);
+		if ((int)(table[index + 1] & MAX_DEPTH) > depth) {
+			// Keep the deepest entry, use the always replace one
+			index += 2;
+		}
+		table[index] = key ^ data;
+		table[index + 1] = data;
+	}
+
+	/** Removes all the entries of this table. */
+	public void clear() {
+		Arrays.fill(table, 0);
+	}
+
+	private int index(long key) {
+		return ((int)key & mask) * 4;
+	}
+}
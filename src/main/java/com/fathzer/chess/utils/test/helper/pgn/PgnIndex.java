@@ -0,0 +1,353 @@
+package com.fathzer.chess.utils.test.helper.pgn;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fathzer.chess.utils.test.helper.io.BinaryFiles;
+
+/** An index of the games of a <a href="https://www.chessprogramming.org/Portable_Game_Notation">PGN</a> file.
+ * <br>The index contains the byte offset and the line number of the first tag pair of every game. It allows to read any game,
+ * or any range of games, without reading the previous ones (see {@link #getReader(long, long)}), and to split a file in ranges of games
+ * that have about the same size in bytes, in order to read them in parallel (see {@link #partition(int)}).
+ * <br>The index is built once, by a byte level scan of the memory mapped PGN file, then it is stored in an index file (by default next to the PGN file,
+ * with the <code>.idx</code> extension) that is reused while the PGN file is not modified.
+ * <br>The index file contains the offset and the line number of every game (two longs), after a {@link BinaryFiles header} with the "PGNI" magic number,
+ * the version of the format, the number of games and the size and last modification date of the PGN file, that are used to detect that the PGN file has changed.
+ * <br>Please note that games are delimited by their tag pairs: each game of the file should start with at least one tag pair, as required by the PGN export format.
+ * <br>The games are read with positional reads, so several threads can read different ranges of games from the same index.
+ */
+public class PgnIndex implements Closeable {
+	/** The size of the index file header. */
+	public static final int HEADER_SIZE = 32;
+	/** The extension of the index files. */
+	public static final String EXTENSION = ".idx";
+	private static final int MAGIC = 0x50474E49;
+	private static final int VERSION = 1;
+	private static final int ENTRY_SIZE = 2 * Long.BYTES;
+	private static final int SCAN_CHUNK_SIZE = 1 << 30;
+
+	/** A range of games.
+	 * @param from the index of the first game of the range
+	 * @param to the index of the game that follows the last game of the range (exclusive)
+	 */
+	public record Range(long from, long to) {
+		/** Gets the number of games of the range.
+		 * @return a positive or null long
+		 */
+		public long size() {
+			return to - from;
+		}
+	}
+
+	private final FileChannel pgn;
+	private final long pgnSize;
+	private final long size;
+	private final int entriesPerChunk;
+	private final MappedByteBuffer[] chunks;
+
+	private PgnIndex(FileChannel pgn, FileChannel index) throws IOException {
+		this.pgn = pgn;
+		this.pgnSize = pgn.size();
+		this.size = (index.size() - HEADER_SIZE) / ENTRY_SIZE;
+		this.entriesPerChunk = Integer.MAX_VALUE / ENTRY_SIZE;
+		this.chunks = new MappedByteBuffer[(int) ((size + entriesPerChunk - 1) / entriesPerChunk)];
+		for (int i = 0; i < chunks.length; i++) {
+			final long first = (long) i * entriesPerChunk;
+			final long count = Math.min(entriesPerChunk, size - first);
+			chunks[i] = index.map(MapMode.READ_ONLY, HEADER_SIZE + first * ENTRY_SIZE, count * ENTRY_SIZE);
+		}
+	}
+
+	/** Opens the index of a PGN file stored next to the file.
+	 * @param path the path of the PGN file
+	 * @return a new index
+	 * @throws IOException if an I/O error occurs
+	 * @see #open(Path, Path)
+	 */
+	public static PgnIndex open(Path path) throws IOException {
+		return open(path, path.resolveSibling(path.getFileName() + EXTENSION));
+	}
+
+	/** Opens the index of a PGN file.
+	 * <br>If the index file does not exist, or if it was built for another version of the PGN file, the index is built and written to the index file.
+	 * <br>Please note that the files remain mapped in memory until the index is garbage collected, even if it is closed.
+	 * @param path the path of the PGN file
+	 * @param indexPath the path of the index file
+	 * @return a new index
+	 * @throws IOException if an I/O error occurs
+	 */
+	public static PgnIndex open(Path path, Path indexPath) throws IOException {
+		final FileChannel pgn = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			final long pgnSize = pgn.size();
+			final long lastModified = Files.getLastModifiedTime(path).toMillis();
+			if (!isValid(indexPath, pgnSize, lastModified)) {
+				// Write the index in a temporary file, so that an interrupted build never leaves an incomplete index
+				final Path tmp = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+				build(pgn, pgnSize, lastModified, tmp);
+				Files.move(tmp, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			try (FileChannel index = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+				return new PgnIndex(pgn, index);
+			}
+		} catch (IOException | RuntimeException e) {
+			pgn.close();
+			throw e;
+		}
+	}
+
+	private static boolean isValid(Path indexPath, long pgnSize, long lastModified) throws IOException {
+		if (!Files.isRegularFile(indexPath)) {
+			return false;
+		}
+		try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+			final ByteBuffer header = BinaryFiles.readHeader(channel, HEADER_SIZE, MAGIC);
+			return header != null && header.getInt() == VERSION && header.getLong() == pgnSize
+					&& header.getLong() == lastModified && channel.size() == HEADER_SIZE + header.getLong() * ENTRY_SIZE;
+		}
+	}
+
+	/** Scans the game boundaries of a PGN file and writes them in an index file.
+	 * <br>A game starts at a line that starts with a tag pair, if the previous lines contain move text (or if it is the first game).
+	 * Comments, strings and escaped lines are skipped, so a <code>[</code> at the beginning of a line of a multi line comment does not start a game.
+	 */
+	private static void build(FileChannel pgn, long pgnSize, long lastModified, Path target) throws IOException {
+		try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			final ByteBuffer buffer = ByteBuffer.allocate(ENTRY_SIZE * 4096);
+			buffer.position(HEADER_SIZE);
+			long count = 0;
+			long line = 1;
+			long lineOffset = 0;
+			boolean lineStart = true;
+			boolean toEndOfLine = false;
+			boolean inComment = false;
+			boolean inString = false;
+			boolean escaped = false;
+			boolean inTag = false;
+			boolean moves = true;
+			for (long chunkStart = 0; chunkStart < pgnSize; chunkStart += SCAN_CHUNK_SIZE) {
+				final MappedByteBuffer chunk = pgn.map(MapMode.READ_ONLY, chunkStart, Math.min(SCAN_CHUNK_SIZE, pgnSize - chunkStart));
+				final int limit = chunk.limit();
+				final int start = chunkStart == 0 ? getByteOrderMarkLength(chunk) : 0;
+				for (int i = start; i < limit; i++) {
+					final byte b = chunk.get(i);
+					if (b == '\n') {
+						line++;
+						lineOffset = chunkStart + i + 1;
+						lineStart = true;
+						toEndOfLine = false;
+						continue;
+					}
+					final boolean first = lineStart;
+					lineStart = false;
+					if (toEndOfLine) {
+						continue;
+					}
+					if (inComment) {
+						inComment = b != '}';
+						continue;
+					}
+					if (inString) {
+						inString = escaped || b != '"';
+						escaped = !escaped && b == '\\';
+						continue;
+					}
+					switch (b) {
+						case '[':
+							if (first && moves) {
+								// A new game starts
+								if (buffer.remaining() < ENTRY_SIZE) {
+									BinaryFiles.write(channel, buffer);
+								}
+								buffer.putLong(lineOffset).putLong(line);
+								count++;
+								moves = false;
+							}
+							inTag = true;
+							break;
+						case ']':
+							inTag = false;
+							break;
+						case '"':
+							inString = true;
+							break;
+						case '%':
+							toEndOfLine = first;
+							break;
+						case '{':
+							inComment = true;
+							break;
+						case ';':
+							toEndOfLine = true;
+							break;
+						case ' ', '\t', '\r':
+							break;
+						default:
+							if (!inTag) {
+								moves = true;
+							}
+					}
+				}
+			}
+			BinaryFiles.write(channel, buffer);
+			buffer.putInt(MAGIC).putInt(VERSION).putLong(pgnSize).putLong(lastModified).putLong(count);
+			buffer.flip();
+			channel.write(buffer, 0);
+		}
+	}
+
+	private static int getByteOrderMarkLength(ByteBuffer buffer) {
+		return buffer.limit() >= 3 && buffer.get(0) == (byte) 0xEF && buffer.get(1) == (byte) 0xBB && buffer.get(2) == (byte) 0xBF ? 3 : 0;
+	}
+
+	/** Gets the number of games.
+	 * @return a positive or null long
+	 */
+	public long size() {
+		return size;
+	}
+
+	/** Gets the offset of a game in the PGN file.
+	 * @param game the index of the game (0 for the first game), or {@link #size()} to get the size of the file
+	 * @return a byte offset
+	 * @throws IndexOutOfBoundsException if game is not in [0, size]
+	 */
+	public long getOffset(long game) {
+		return game == size ? pgnSize : get(game, 0);
+	}
+
+	/** Gets the line of a game in the PGN file.
+	 * @param game the index of the game (0 for the first game)
+	 * @return the number of the first line of the game (the first line of the file is 1)
+	 * @throws IndexOutOfBoundsException if game is not in [0, size[
+	 */
+	public long getLine(long game) {
+		return get(game, Long.BYTES);
+	}
+
+	private long get(long game, int field) {
+		if (game < 0 || game >= size) {
+			throw new IndexOutOfBoundsException(game);
+		}
+		return chunks[(int) (game / entriesPerChunk)].getLong((int) (game % entriesPerChunk) * ENTRY_SIZE + field);
+	}
+
+	/** Gets a reader of a range of games.
+	 * <br>The returned reader reads the games directly from their offset in the PGN file, and reports the line numbers of the file.
+	 * @param from the index of the first game
+	 * @param to the index of the game that follows the last game to read (exclusive)
+	 * @return a new reader. It should be closed, but closing it does not close this index.
+	 * @throws IndexOutOfBoundsException if from and to are not a valid range of games
+	 */
+	public PgnReader getReader(long from, long to) {
+		checkRange(from, to);
+		final long start = getOffset(from);
+		final InputStream in = new RangeInputStream(pgn, start, getOffset(to));
+		return new PgnReader(new InputStreamReader(in, StandardCharsets.UTF_8), from == size ? 1 : getLine(from));
+	}
+
+	/** Splits the games in ranges of about the same size in bytes.
+	 * @param count the maximum number of ranges
+	 * @return a list of non empty, consecutive, ranges that contains all the games
+	 * @throws IllegalArgumentException if count is not strictly positive
+	 */
+	public List<Range> partition(int count) {
+		return partition(0, size, count);
+	}
+
+	/** Splits a range of games in ranges of about the same size in bytes.
+	 * @param from the index of the first game
+	 * @param to the index of the game that follows the last game (exclusive)
+	 * @param count the maximum number of ranges
+	 * @return a list of non empty, consecutive, ranges that contains all the games of the range
+	 * @throws IllegalArgumentException if count is not strictly positive
+	 * @throws IndexOutOfBoundsException if from and to are not a valid range of games
+	 */
+	public List<Range> partition(long from, long to, int count) {
+		if (count <= 0) {
+			throw new IllegalArgumentException("Count MUST be > 0");
+		}
+		checkRange(from, to);
+		final long start = getOffset(from);
+		final long length = getOffset(to) - start;
+		final List<Range> result = new ArrayList<>(count);
+		for (int i = 1; i <= count && from < to; i++) {
+			final long end = i == count ? to : Math.min(to, Math.max(from + 1, getFirstGameAfter(start + length / count * i)));
+			result.add(new Range(from, end));
+			from = end;
+		}
+		return result;
+	}
+
+	private void checkRange(long from, long to) {
+		if (from < 0 || to > size || from > to) {
+			throw new IndexOutOfBoundsException("Invalid range [" + from + ", " + to + "[");
+		}
+	}
+
+	/** Gets the index of the first game that starts at or after an offset.
+	 * @return a game index in [0, size]
+	 */
+	private long getFirstGameAfter(long offset) {
+		long low = 0;
+		long high = size;
+		while (low < high) {
+			final long middle = (low + high) >>> 1;
+			if (getOffset(middle) < offset) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	@Override
+	public void close() throws IOException {
+		pgn.close();
+	}
+
+	/** An input stream of a part of a file, read with positional reads, so that several streams can share the same channel. */
+	private static class RangeInputStream extends InputStream {
+		private final FileChannel channel;
+		private final long end;
+		private long position;
+
+		private RangeInputStream(FileChannel channel, long start, long end) {
+			this.channel = channel;
+			this.position = start;
+			this.end = end;
+		}
+
+		@Override
+		public int read() throws IOException {
+			final byte[] b = new byte[1];
+			return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (position >= end) {
+				return -1;
+			}
+			final int read = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+			if (read > 0) {
+				position += read;
+			}
+			return read;
+		}
+	}
+}
@@ -0,0 +1,276 @@
+package com.fathzer.chess.utils.test.helper.pgn;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.fathzer.chess.utils.test.helper.pgn.PgnTokenizer.TokenType;
+
+/** A streaming reader of <a href="https://github.com/fsmosca/PGN-Standard/blob/master/PGN-Standard.txt">PGN</a> data.
+ * <br>The games are read one at a time by a {@link PgnTokenizer}, and their content is sent to a {@link Handler} as events (tag pairs, moves, comments, etc.).
+ * Nothing is kept in memory once an event is sent, so files of any size are read with a constant memory.
+ * <br>A game ends with its termination marker (for instance <code>1-0</code>). Games without termination marker are ended by the tag pairs of the next game,
+ * or by the end of the data.
+ * <br>Move numbers are ignored and suffix annotations (for instance <code>!?</code>) are reported as their equivalent <a href="https://en.wikipedia.org/wiki/Numeric_Annotation_Glyphs">NAG</a>.
+ */
+public class PgnReader implements Closeable {
+	/** A receiver of the events of a PGN game.
+	 * <br>The {@link CharSequence} arguments are only valid during the call, use their <code>toString()</code> method to keep them.
+	 * <br>All the methods do nothing by default.
+	 */
+	public interface Handler {
+		/** Called when a game starts.
+		 * @param line the line of the first token of the game (the first line is 1)
+		 */
+		default void startGame(long line) {
+			// Ignored by default
+		}
+
+		/** Called for each tag pair.
+		 * @param name the tag name
+		 * @param value the tag value, unescaped
+		 */
+		default void tag(CharSequence name, CharSequence value) {
+			// Ignored by default
+		}
+
+		/** Called for each move.
+		 * @param san the move in SAN, without suffix annotation
+		 * @param depth the variation depth of the move (0 for the main line)
+		 */
+		default void move(CharSequence san, int depth) {
+			// Ignored by default
+		}
+
+		/** Called at the start of a variation. */
+		default void startVariation() {
+			// Ignored by default
+		}
+
+		/** Called at the end of a variation. */
+		default void endVariation() {
+			// Ignored by default
+		}
+
+		/** Called for each comment.
+		 * @param comment the comment, without its delimiters
+		 */
+		default void comment(CharSequence comment) {
+			// Ignored by default
+		}
+
+		/** Called for each Numeric Annotation Glyph or suffix annotation.
+		 * @param nag the glyph number
+		 */
+		default void nag(int nag) {
+			// Ignored by default
+		}
+
+		/** Called when a game ends.
+		 * @param result the termination marker (1-0, 0-1, 1/2-1/2 or *) or null if the game has no termination marker
+		 */
+		default void endGame(CharSequence result) {
+			// Ignored by default
+		}
+	}
+
+	/** The suffix annotations, indexed by their NAG. */
+	private static final String[] SUFFIXES = {null, "!", "?", "!!", "??", "!?", "?!"};
+
+	private final PgnTokenizer tokenizer;
+	private final StringBuilder tagName = new StringBuilder();
+	private TokenType pending;
+
+	/** Constructor.
+	 * @param reader the reader of the PGN data. There is no need to buffer it.
+	 */
+	public PgnReader(Reader reader) {
+		this(reader, 1);
+	}
+
+	/** Constructor.
+	 * @param reader the reader of the PGN data. There is no need to buffer it.
+	 * @param firstLine the number of the first line of the data (for instance when the reader starts in the middle of a file, see {@link PgnIndex})
+	 */
+	public PgnReader(Reader reader, long firstLine) {
+		this.tokenizer = new PgnTokenizer(reader, firstLine);
+	}
+
+	/** Creates a reader of a PGN file.
+	 * @param path the path of the file
+	 * @return a new reader
+	 * @throws IOException if the file can't be opened
+	 */
+	public static PgnReader of(Path path) throws IOException {
+		return new PgnReader(Files.newBufferedReader(path, StandardCharsets.UTF_8));
+	}
+
+	/** Reads all the remaining games.
+	 * @param handler the receiver of the events
+	 * @return the number of games read
+	 * @throws IOException if an I/O error occurs
+	 * @throws IllegalArgumentException if the data is not valid PGN
+	 */
+	public long read(Handler handler) throws IOException {
+		long count = 0;
+		while (readGame(handler)) {
+			count++;
+		}
+		return count;
+	}
+
+	/** Reads the next game.
+	 * @param handler the receiver of the events
+	 * @return true if a game was read, false if the end of the data is reached
+	 * @throws IOException if an I/O error occurs
+	 * @throws IllegalArgumentException if the data is not valid PGN
+	 */
+	public boolean readGame(Handler handler) throws IOException {
+		TokenType token = pending == null ? tokenizer.next() : pending;
+		pending = null;
+		if (token == null) {
+			return false;
+		}
+		handler.startGame(tokenizer.getLine());
+		boolean inMoves = false;
+		int depth = 0;
+		while (token != null) {
+			switch (token) {
+				case LEFT_BRACKET:
+					if (inMoves) {
+						if (depth != 0) {
+							throw new IllegalArgumentException("Unexpected tag pair in a variation at line " + tokenizer.getLine());
+						}
+						// The next game starts
+						pending = token;
+						handler.endGame(null);
+						return true;
+					}
+					readTag(handler);
+					break;
+				case ASTERISK:
+				case SYMBOL:
+					if (token == TokenType.ASTERISK || isTermination()) {
+						if (depth != 0) {
+							throw new IllegalArgumentException("Unexpected termination marker in a variation at line " + tokenizer.getLine());
+						}
+						handler.endGame(token == TokenType.ASTERISK ? "*" : tokenizer.getText());
+						return true;
+					}
+					inMoves = true;
+					if (!isMoveNumber()) {
+						handler.move(tokenizer.getText(), depth);
+					}
+					break;
+				case PERIOD:
+					inMoves = true;
+					break;
+				case LEFT_PARENTHESIS:
+					inMoves = true;
+					depth++;
+					handler.startVariation();
+					break;
+				case RIGHT_PARENTHESIS:
+					if (depth == 0) {
+						throw new IllegalArgumentException("Unexpected end of variation at line " + tokenizer.getLine());
+					}
+					depth--;
+					handler.endVariation();
+					break;
+				case NAG:
+					handler.nag(parseNag());
+					break;
+				case SUFFIX:
+					handler.nag(getSuffixNag());
+					break;
+				case COMMENT:
+					handler.comment(tokenizer.getText());
+					break;
+				default:
+					throw new IllegalArgumentException("Unexpected " + token + " at line " + tokenizer.getLine());
+			}
+			token = tokenizer.next();
+		}
+		if (depth != 0) {
+			throw new IllegalArgumentException("Unterminated variation at the end of the data");
+		}
+		handler.endGame(null);
+		return true;
+	}
+
+	/** Skips the rest of the current game.
+	 * <br>This method should be called after {@link #readGame(Handler)} has thrown an {@link IllegalArgumentException}: the data is skipped up to the next
+	 * line that starts with a tag pair, so the next call to {@link #readGame(Handler)} reads the next game.
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void skipGame() throws IOException {
+		pending = null;
+		tokenizer.skipToTagPair();
+	}
+
+	/** Gets the line of the last token read.
+	 * @return a line number (the first line is 1)
+	 */
+	public long getLine() {
+		return tokenizer.getLine();
+	}
+
+	private void readTag(Handler handler) throws IOException {
+		final long line = tokenizer.getLine();
+		if (tokenizer.next() != TokenType.SYMBOL) {
+			throw new IllegalArgumentException("Invalid tag pair at line " + line);
+		}
+		tagName.setLength(0);
+		tagName.append(tokenizer.getText());
+		if (tokenizer.next() != TokenType.STRING) {
+			throw new IllegalArgumentException("Invalid tag pair at line " + line);
+		}
+		handler.tag(tagName, tokenizer.getText());
+		if (tokenizer.next() != TokenType.RIGHT_BRACKET) {
+			throw new IllegalArgumentException("Invalid tag pair at line " + line);
+		}
+	}
+
+	private boolean isTermination() {
+		return tokenizer.isText("1-0") || tokenizer.isText("0-1") || tokenizer.isText("1/2-1/2");
+	}
+
+	private boolean isMoveNumber() {
+		final CharSequence text = tokenizer.getText();
+		for (int i = 0; i < text.length(); i++) {
+			if (!Character.isDigit(text.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int parseNag() {
+		final CharSequence text = tokenizer.getText();
+		if (text.length() == 0 || text.length() > 3) {
+			throw new IllegalArgumentException("Invalid NAG at line " + tokenizer.getLine());
+		}
+		int result = 0;
+		for (int i = 0; i < text.length(); i++) {
+			result = result * 10 + text.charAt(i) - '0';
+		}
+		return result;
+	}
+
+	private int getSuffixNag() {
+		for (int i = 1; i < SUFFIXES.length; i++) {
+			if (tokenizer.isText(SUFFIXES[i])) {
+				return i;
+			}
+		}
+		throw new IllegalArgumentException("Invalid suffix annotation " + tokenizer.getText() + " at line " + tokenizer.getLine());
+	}
+
+	@Override
+	public void close() throws IOException {
+		tokenizer.close();
+	}
+}
@@ -0,0 +1,292 @@
+package com.fathzer.chess.utils.test.helper.pgn;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/** An incremental tokenizer of <a href="https://github.com/fsmosca/PGN-Standard/blob/master/PGN-Standard.txt">PGN</a> data.
+ * <br>Tokens are read one at a time from a {@link Reader}, through an internal buffer. The text of the current token is kept in a reused buffer
+ * (see {@link #getText()}), so reading huge PGN files does not allocate any object per token.
+ * <br>Escaped lines (starting with <code>%</code>) and reserved <code>&lt;...&gt;</code> tokens are ignored.
+ */
+public class PgnTokenizer implements Closeable {
+	/** The types of tokens. */
+	public enum TokenType {
+		/** A quoted string. Its text is the unescaped string, without quotes. */
+		STRING,
+		/** A symbol (for instance a tag name, a move in SAN, a move number or a game termination marker like 1-0). */
+		SYMBOL,
+		/** A period (for instance after a move number). */
+		PERIOD,
+		/** An asterisk (the termination marker of an unfinished game). */
+		ASTERISK,
+		/** A left bracket (the start of a tag pair). */
+		LEFT_BRACKET,
+		/** A right bracket (the end of a tag pair). */
+		RIGHT_BRACKET,
+		/** A left parenthesis (the start of a variation). */
+		LEFT_PARENTHESIS,
+		/** A right parenthesis (the end of a variation). */
+		RIGHT_PARENTHESIS,
+		/** A Numeric Annotation Glyph. Its text is the number, without the <code>$</code> prefix. */
+		NAG,
+		/** A move suffix annotation (for instance <code>!?</code>). */
+		SUFFIX,
+		/** A comment. Its text is the comment without its delimiters. */
+		COMMENT
+	}
+
+	/** A reusable view of a part of a char array. */
+	private static final class Text implements CharSequence {
+		private char[] chars = new char[256];
+		private int length;
+
+		private void append(char c) {
+			if (length == chars.length) {
+				chars = Arrays.copyOf(chars, 2 * length);
+			}
+			chars[length++] = c;
+		}
+
+		@Override
+		public int length() {
+			return length;
+		}
+
+		@Override
+		public char charAt(int index) {
+			if (index < 0 || index >= length) {
+				throw new IndexOutOfBoundsException(index);
+			}
+			return chars[index];
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return toString().subSequence(start, end);
+		}
+
+		@Override
+		public String toString() {
+			return new String(chars, 0, length);
+		}
+	}
+
+	private static final int EOF = -1;
+	private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+	private final Reader reader;
+	private final char[] buffer = new char[65536];
+	private final Text text = new Text();
+	private int position;
+	private int limit;
+	private long line;
+	private long tokenLine;
+	private boolean lineStart = true;
+
+	/** Constructor.
+	 * @param reader the reader of the PGN data. There is no need to buffer it.
+	 */
+	public PgnTokenizer(Reader reader) {
+		this(reader, 1);
+	}
+
+	/** Constructor.
+	 * @param reader the reader of the PGN data. There is no need to buffer it.
+	 * @param firstLine the number of the first line of the data (for instance when the reader starts in the middle of a file)
+	 */
+	public PgnTokenizer(Reader reader, long firstLine) {
+		this.reader = reader;
+		this.line = firstLine;
+	}
+
+	/** Creates a tokenizer of a PGN file.
+	 * @param path the path of the file
+	 * @return a new tokenizer
+	 * @throws IOException if the file can't be opened
+	 */
+	public static PgnTokenizer of(Path path) throws IOException {
+		return new PgnTokenizer(Files.newBufferedReader(path, StandardCharsets.UTF_8));
+	}
+
+	/** Reads the next token.
+	 * @return the type of the token or null if the end of the data is reached
+	 * @throws IOException if an I/O error occurs
+	 * @throws IllegalArgumentException if the data contains an unexpected character
+	 */
+	public TokenType next() throws IOException {
+		text.length = 0;
+		while (true) {
+			final boolean escapable = lineStart;
+			int c = read();
+			if (c == '%' && escapable) {
+				skipLine();
+				continue;
+			}
+			if (c == EOF) {
+				return null;
+			}
+			if (c == BYTE_ORDER_MARK) {
+				// The escape character can follow the byte order mark
+				lineStart = escapable;
+				continue;
+			}
+			if (Character.isWhitespace(c)) {
+				continue;
+			}
+			tokenLine = line;
+			switch (c) {
+				case '[': return TokenType.LEFT_BRACKET;
+				case ']': return TokenType.RIGHT_BRACKET;
+				case '(': return TokenType.LEFT_PARENTHESIS;
+				case ')': return TokenType.RIGHT_PARENTHESIS;
+				case '.': return TokenType.PERIOD;
+				case '*': return TokenType.ASTERISK;
+				case '"': return readString();
+				case '{': return readComment('}');
+				case ';': return readComment('\n');
+				case '$': return readNag();
+				case '<':
+					readComment('>');
+					text.length = 0;
+					continue;
+				case '!', '?':
+					text.append((char) c);
+					while ((c = peek()) == '!' || c == '?') {
+						text.append((char) read());
+					}
+					return TokenType.SUFFIX;
+				default:
+					if (!Character.isLetterOrDigit(c)) {
+						throw new IllegalArgumentException("Unexpected character '" + (char) c + "' at line " + line);
+					}
+					text.append((char) c);
+					while (isSymbolContinuation(c = peek())) {
+						text.append((char) read());
+					}
+					return TokenType.SYMBOL;
+			}
+		}
+	}
+
+	/** Skips the data up to the next line that starts with a left bracket (usually the first tag pair of a game).
+	 * <br>This allows to resume reading after invalid data: the next token is the left bracket, or null if there is no such line.
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void skipToTagPair() throws IOException {
+		while (!(lineStart && peek() == '[') && read() != EOF) {
+			// Skip the character
+		}
+	}
+
+	/** Gets the text of the current token.
+	 * <br>The returned sequence is valid until the next call to {@link #next()}. Call its <code>toString()</code> method to keep it.
+	 * @return a char sequence, empty for tokens that have no text (for instance {@link TokenType#PERIOD}).
+	 */
+	public CharSequence getText() {
+		return text;
+	}
+
+	/** Tests whether the text of the current token is equal to a string.
+	 * @param value a string
+	 * @return true if the text is equal to value
+	 */
+	public boolean isText(String value) {
+		if (value.length() != text.length) {
+			return false;
+		}
+		for (int i = 0; i < text.length; i++) {
+			if (text.chars[i] != value.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/** Gets the line where the current token starts.
+	 * @return a line number (the first line is 1)
+	 */
+	public long getLine() {
+		return tokenLine;
+	}
+
+	private static boolean isSymbolContinuation(int c) {
+		return c != EOF && (Character.isLetterOrDigit(c) || c == '_' || c == '+' || c == '#' || c == '=' || c == ':' || c == '-' || c == '/');
+	}
+
+	private TokenType readString() throws IOException {
+		int c;
+		while ((c = read()) != '"') {
+			if (c == EOF) {
+				throw new IllegalArgumentException("Unterminated string at line " + tokenLine);
+			}
+			if (c == '\\') {
+				c = read();
+				if (c == EOF) {
+					throw new IllegalArgumentException("Unterminated string at line " + tokenLine);
+				}
+			}
+			text.append((char) c);
+		}
+		return TokenType.STRING;
+	}
+
+	private TokenType readComment(char end) throws IOException {
+		int c;
+		while ((c = read()) != end && c != EOF) {
+			if (c != '\r') {
+				text.append((char) c);
+			}
+		}
+		return TokenType.COMMENT;
+	}
+
+	private TokenType readNag() throws IOException {
+		while (Character.isDigit(peek())) {
+			text.append((char) read());
+		}
+		return TokenType.NAG;
+	}
+
+	private void skipLine() throws IOException {
+		int c;
+		do {
+			c = read();
+		} while (c != '\n' && c != EOF);
+	}
+
+	private int peek() throws IOException {
+		return position < limit || fill() ? buffer[position] : EOF;
+	}
+
+	private int read() throws IOException {
+		if (position == limit && !fill()) {
+			return EOF;
+		}
+		final char c = buffer[position++];
+		lineStart = c == '\n';
+		if (lineStart) {
+			line++;
+		}
+		return c;
+	}
+
+	private boolean fill() throws IOException {
+		final int read = reader.read(buffer);
+		if (read <= 0) {
+			return false;
+		}
+		position = 0;
+		limit = read;
+		return true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+}
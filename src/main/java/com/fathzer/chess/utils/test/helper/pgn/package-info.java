@@ -0,0 +1,3 @@
+/** Utility classes related to <a href="https://www.chessprogramming.org/Portable_Game_Notation">PGN</a> parsing.
+*/
+package com.fathzer.chess.utils.test.helper.pgn;
@@ -0,0 +1,80 @@
+package com.fathzer.chess.utils.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.fathzer.chess.utils.test.jchess.JChessAdapter;
+
+class IBoardTest {
+	/** A board whose moves are packed moves. */
+	private static class IntBoard implements IBoard<Integer> {
+		@Override
+		public List<Integer> getMoves() {
+			return List.of(UCIMoves.pack("e2e4"), UCIMoves.pack("e7e8q"), UCIMoves.pack("e7e8n"));
+		}
+
+		@Override
+		public boolean makeMove(Integer mv) {
+			return true;
+		}
+
+		@Override
+		public void unmakeMove() {
+			// Nothing to do
+		}
+	}
+
+	private static class PackedBoard extends IntBoard {
+		private final AtomicInteger packCount = new AtomicInteger();
+
+		@Override
+		public int toPackedMove(Integer move) {
+			packCount.incrementAndGet();
+			return move;
+		}
+
+		@Override
+		public String toUCI(Integer move) {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	@Test
+	void testToMove() {
+		final PackedBoard board = new PackedBoard();
+		assertEquals(UCIMoves.pack("e7e8n"), board.toMove("e7e8n"));
+		assertEquals(3, board.packCount.get());
+		assertThrows(IllegalArgumentException.class, () -> board.toMove("e7e8r"));
+		assertThrows(IllegalArgumentException.class, () -> board.toMove("e7e8x"));
+
+		// A board whose toUCI method does not return UCI moves for some moves
+		final IBoard<Integer> notUCI = new IntBoard() {
+			@Override
+			public String toUCI(Integer move) {
+				return move == UCIMoves.pack("e2e4") ? "E2E4" : UCIMoves.toUCI(move);
+			}
+		};
+		assertEquals(-1, notUCI.toPackedMove(UCIMoves.pack("e2e4")));
+		assertEquals(UCIMoves.pack("e7e8n"), notUCI.toMove("e7e8n"));
+		assertThrows(IllegalArgumentException.class, () -> notUCI.toMove("e2e4"));
+	}
+
+	@Test
+	void testPackedMoves() {
+		final IBoard<?> board = new JChessAdapter().fenToBoard("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", Variant.STANDARD);
+		doTestPackedMoves(board);
+		doTestPackedMoves(new JChessAdapter().fenToBoard("8/1P4k1/8/8/8/8/6K1/8 w - - 0 1", Variant.STANDARD));
+	}
+
+	private <M> void doTestPackedMoves(IBoard<M> board) {
+		for (M move : board.getMoves()) {
+			final String uci = board.toUCI(move);
+			assertEquals(UCIMoves.pack(uci), board.toPackedMove(move), uci);
+			assertEquals(move, board.toMove(uci));
+		}
+	}
+}
@@ -0,0 +1,22 @@
+package com.fathzer.chess.utils.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class UCIMovesTest {
+
+	@Test
+	void test() {
+		assertEquals(UCIMoves.pack(12, 28, BoardPieceScanner.NONE), UCIMoves.pack("e2e4"));
+		assertEquals(UCIMoves.pack(52, 60, BoardPieceScanner.QUEEN), UCIMoves.pack("e7e8q"));
+		assertEquals(UCIMoves.pack(0, 63, BoardPieceScanner.NONE), UCIMoves.pack("a1h8"));
+		assertNotEquals(UCIMoves.pack("e7e8q"), UCIMoves.pack("e7e8n"));
+		for (String uci : new String[] {"e2e4", "a1h8", "h8a1", "b7a8n", "g2h1b", "c7c8r", "d2d1q"}) {
+			assertEquals(uci, UCIMoves.toUCI(UCIMoves.pack(uci)));
+		}
+		for (String invalid : new String[] {"", "e2e", "e2e4qq", "i2e4", "e9e4", "e7e8p", "e7e8k", "e7e8Q", "e7e8 "}) {
+			assertThrows(IllegalArgumentException.class, () -> UCIMoves.pack(invalid), invalid);
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package com.fathzer.chess.utils.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import com.fathzer.chess.utils.model.Variant;
+import com.fathzer.chess.utils.test.GameReplayTest.Game;
+import com.fathzer.chess.utils.test.helper.pgn.PgnReader;
+
+class GameReplayTestTest {
+	private static final String PGN = "[Event \"First\"]\n" +
+			"[Result \"1-0\"]\n" +
+			"\n" +
+			"1. e4 {best by test} e5 2. Nf3 (2. f4 exf4 3. Nf3) 2... Nc6 $1 3. Bb5 1-0\n" +
+			"\n" +
+			"[Event \"Second\"]\n" +
+			"[Variant \"Chess960\"]\n" +
+			"[FEN \"bbqnnrkr/pppppppp/8/8/8/8/PPPPPPPP/BBQNNRKR w HFhf - 0 1\"]\n" +
+			"\n" +
+			"1. O-O *\n" +
+			"\n" +
+			"[Event \"Empty\"]\n" +
+			"\n" +
+			"1/2-1/2\n";
+
+	@Test
+	void testReadGames() {
+		try (Stream<Game> games = GameReplayTest.readGames(new PgnReader(new StringReader(PGN)), 1)) {
+			assertEquals(List.of(
+					new Game(1, 1, null, null, List.of("e4", "e5", "Nf3", "Nc6", "Bb5")),
+					new Game(2, 6, "bbqnnrkr/pppppppp/8/8/8/8/PPPPPPPP/BBQNNRKR w HFhf - 0 1", "Chess960", List.of("O-O")),
+					new Game(3, 12, null, null, List.of())), games.toList());
+		}
+		try (Stream<Game> games = GameReplayTest.readGames(new PgnReader(new StringReader("[Event \"No termination\"]\n\n1. e4 e5")), 1)) {
+			assertEquals(List.of(new Game(1, 1, null, null, List.of("e4", "e5"))), games.toList());
+		}
+	}
+
+	@Test
+	void testReadInvalidGames() {
+		final String pgn = "[Event \"Null move\"]\n\n1. e4 -- 2. d4 *\n\n[Event \"Valid\"]\n\n1. d4 *\n\n[Event \"Unterminated";
+		try (Stream<Game> games = GameReplayTest.readGames(new PgnReader(new StringReader(pgn)), 1)) {
+			final List<Game> list = games.toList();
+			assertEquals(3, list.size());
+			assertEquals(1, list.get(0).number());
+			assertEquals(1, list.get(0).line());
+			assertEquals("Unexpected character '-' at line 3", list.get(0).error());
+			assertEquals(new Game(2, 5, null, null, List.of("d4")), list.get(1));
+			assertEquals(3, list.get(2).number());
+			assertEquals(9, list.get(2).line());
+			assertNotNull(list.get(2).error());
+		}
+	}
+
+	@Test
+	void testGetDestination() {
+		assertEquals(28, GameReplayTest.getDestination("e4"));
+		assertEquals(21, GameReplayTest.getDestination("Nf3"));
+		assertEquals(60, GameReplayTest.getDestination("exe8=Q+"));
+		assertEquals(2, GameReplayTest.getDestination("Rac1#"));
+		assertEquals(-1, GameReplayTest.getDestination("O-O-O+"));
+	}
+
+	@Test
+	void testGetVariant() {
+		assertEquals(Variant.STANDARD, GameReplayTest.getVariant(null));
+		assertEquals(Variant.STANDARD, GameReplayTest.getVariant("Standard"));
+		assertEquals(Variant.CHESS960, GameReplayTest.getVariant("Chess960"));
+		assertEquals(Variant.CHESS960, GameReplayTest.getVariant("fischerandom"));
+		assertNull(GameReplayTest.getVariant("Crazyhouse"));
+	}
+}
@@ -0,0 +1,25 @@
+package com.fathzer.chess.utils.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class PerftBenchmarkTestTest {
+
+	@Test
+	void testMedian() {
+		assertEquals(3, PerftBenchmarkTest.median(new long[] {5, 1, 3}));
+		assertEquals(4, PerftBenchmarkTest.median(new long[] {5, 1, 3, 7}));
+		assertEquals(2, PerftBenchmarkTest.median(new long[] {2}));
+	}
+
+	@Test
+	void testRegression() {
+		assertNull(PerftBenchmarkTest.getRegression(1000, 1000, 10));
+		assertNull(PerftBenchmarkTest.getRegression(2000, 1000, 10));
+		assertNull(PerftBenchmarkTest.getRegression(900, 1000, 10));
+		final String message = PerftBenchmarkTest.getRegression(700, 1000, 10);
+		assertNotNull(message);
+		assertTrue(message.contains("30.0%"), message);
+	}
+}
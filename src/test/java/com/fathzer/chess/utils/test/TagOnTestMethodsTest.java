@@ -9,6 +9,7 @@ import java.util.Optional;
 
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
 import org.reflections.Reflections;
 import org.reflections.scanners.SubTypesScanner;
 
@@ -26,7 +27,7 @@ class TagOnTestMethodsTest {
 		final String classNamePrefix = c.getSimpleName() + ".";
         boolean noTest = true;
 		for (Method m : methods) {
-			if (m.getAnnotation(Test.class) != null) {
+			if (m.getAnnotation(Test.class) != null || m.getAnnotation(TestFactory.class) != null) {
                 noTest = false;
 				final List<String> tags = Arrays.stream(m.getAnnotationsByType(Tag.class)).map(Tag::value).toList();
 				assertFalse(tags.isEmpty(), String.format("Method %s of class %s should have a @Tag annotation", m, c));
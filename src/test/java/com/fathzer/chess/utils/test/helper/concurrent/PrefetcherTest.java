@@ -0,0 +1,116 @@
+package com.fathzer.chess.utils.test.helper.concurrent;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+class PrefetcherTest {
+	@Test
+	void test() {
+		final List<Integer> expected = IntStream.range(0, 1000).boxed().toList();
+		try (Stream<Integer> stream = Prefetcher.prefetch(expected.stream(), 3)) {
+			assertEquals(expected, stream.toList());
+		}
+		assertThrows(IllegalArgumentException.class, () -> Prefetcher.prefetch(Stream.empty(), 0));
+	}
+
+	@Test
+	void testReadAhead() throws InterruptedException {
+		// The source is read while the consumer does not ask for elements
+		final CountDownLatch allRead = new CountDownLatch(10);
+		final Stream<Integer> source = IntStream.range(0, 10).boxed().peek(i -> allRead.countDown());
+		try (Stream<Integer> stream = Prefetcher.prefetch(source, 10)) {
+			final Iterator<Integer> iterator = stream.iterator();
+			assertEquals(0, iterator.next());
+			assertTrue(allRead.await(10, TimeUnit.SECONDS));
+			for (int i = 1; i < 10; i++) {
+				assertEquals(i, iterator.next());
+			}
+			assertFalse(iterator.hasNext());
+		}
+	}
+
+	@Test
+	void testBackpressure() throws InterruptedException {
+		final AtomicInteger read = new AtomicInteger();
+		final CountDownLatch full = new CountDownLatch(7);
+		final CountDownLatch freed = new CountDownLatch(8);
+		final CountDownLatch stopped = new CountDownLatch(1);
+		final Stream<Integer> source = IntStream.range(0, 1000).boxed().peek(i -> {
+			read.incrementAndGet();
+			full.countDown();
+			freed.countDown();
+		}).onClose(stopped::countDown);
+		final AtomicReference<Thread> producer = new AtomicReference<>();
+		final ThreadFactory factory = Threads.daemonFactory("test");
+		final Stream<Integer> stream = Prefetcher.prefetch(source, 5, r -> {
+			producer.set(factory.newThread(r));
+			return producer.get();
+		});
+		final Iterator<Integer> iterator = stream.iterator();
+		assertEquals(0, iterator.next());
+		// 5 elements in the queue, 1 consumed and 1 waiting for a free slot
+		assertTrue(full.await(10, TimeUnit.SECONDS));
+		awaitWaiting(producer.get());
+		assertEquals(7, read.get());
+		// Consuming an element frees a slot for exactly one more element
+		assertEquals(1, iterator.next());
+		assertTrue(freed.await(10, TimeUnit.SECONDS));
+		awaitWaiting(producer.get());
+		assertEquals(8, read.get());
+		stream.close();
+		assertTrue(stopped.await(10, TimeUnit.SECONDS));
+		assertEquals(8, read.get());
+	}
+
+	/** Waits until a producer is blocked because the queue is full. */
+	private static void awaitWaiting(Thread thread) throws InterruptedException {
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (thread.getState() != Thread.State.WAITING) {
+			assertTrue(System.nanoTime() < deadline, "Producer is not blocked");
+			Thread.sleep(1);
+		}
+	}
+
+	@Test
+	void testFailure() {
+		final Stream<Integer> source = IntStream.range(0, 10).boxed().peek(i -> {
+			if (i == 5) {
+				throw new IllegalArgumentException("Invalid line");
+			}
+		});
+		try (Stream<Integer> stream = Prefetcher.prefetch(source, 2)) {
+			final Iterator<Integer> iterator = stream.iterator();
+			for (int i = 0; i < 5; i++) {
+				assertEquals(i, iterator.next());
+			}
+			final IllegalArgumentException e = assertThrows(IllegalArgumentException.class, iterator::hasNext);
+			assertEquals("Invalid line", e.getMessage());
+		}
+	}
+
+	@Test
+	void testError() {
+		final Stream<Integer> source = IntStream.range(0, 10).boxed().peek(i -> {
+			if (i == 2) {
+				throw new AssertionError("Invalid element");
+			}
+		});
+		try (Stream<Integer> stream = Prefetcher.prefetch(source, 2)) {
+			final Iterator<Integer> iterator = stream.iterator();
+			assertEquals(0, iterator.next());
+			assertEquals(1, iterator.next());
+			assertEquals("Invalid element", assertThrows(AssertionError.class, iterator::next).getMessage());
+		}
+	}
+}
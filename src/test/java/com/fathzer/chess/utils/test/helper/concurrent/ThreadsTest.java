@@ -0,0 +1,36 @@
+package com.fathzer.chess.utils.test.helper.concurrent;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+class ThreadsTest {
+	@Test
+	void test() {
+		final ExecutorService executor = Executors.newFixedThreadPool(2, Threads.daemonFactory("test"));
+		try {
+			final Future<Thread> thread = executor.submit(Thread::currentThread);
+			assertTrue(Threads.get(thread).isDaemon());
+			assertTrue(Threads.get(thread).getName().startsWith("test-"));
+			final Future<Object> assertion = executor.submit(() -> fail("Expected"));
+			assertEquals("Expected", assertThrows(AssertionError.class, () -> Threads.get(assertion)).getMessage());
+			final Future<Object> illegal = executor.submit(() -> {throw new IllegalArgumentException("Expected");});
+			assertEquals("Expected", assertThrows(IllegalArgumentException.class, () -> Threads.get(illegal)).getMessage());
+			final Future<Object> checked = executor.submit(() -> {throw new IOException("Expected");});
+			assertTrue(assertThrows(IllegalStateException.class, () -> Threads.get(checked)).getCause() instanceof IOException);
+		} finally {
+			executor.shutdown();
+		}
+
+		final Future<Object> never = new CompletableFuture<>();
+		Thread.currentThread().interrupt();
+		assertThrows(IllegalStateException.class, () -> Threads.get(never));
+		assertTrue(Thread.interrupted());
+	}
+}
@@ -0,0 +1,45 @@
+package com.fathzer.chess.utils.test.helper.fen;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.fathzer.chess.utils.test.helper.perft.EpdReader;
+
+class Chess960StartPositionsTest {
+	@Test
+	void test() {
+		assertEquals("BBQNNRKR", Chess960StartPositions.getPieces(0));
+		assertEquals("RNBQKBNR", Chess960StartPositions.getPieces(518));
+		assertEquals("RKRNNQBB", Chess960StartPositions.getPieces(959));
+		assertEquals("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w HAha - 0 1", Chess960StartPositions.getFEN(518));
+		assertEquals("bbqnnrkr/pppppppp/8/8/8/8/PPPPPPPP/BBQNNRKR w HFhf - 0 1", Chess960StartPositions.getFEN(0));
+		assertThrows(IllegalArgumentException.class, () -> Chess960StartPositions.getPieces(-1));
+		assertThrows(IllegalArgumentException.class, () -> Chess960StartPositions.getFEN(960));
+
+		final Set<String> all = IntStream.range(0, Chess960StartPositions.COUNT).mapToObj(Chess960StartPositions::getPieces).collect(Collectors.toSet());
+		assertEquals(960, all.size());
+		for (String pieces : all) {
+			assertEquals("BBKNNQRR", pieces.chars().sorted().collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append).toString());
+			assertNotEquals(pieces.indexOf('B') % 2, pieces.lastIndexOf('B') % 2, pieces);
+			assertTrue(pieces.indexOf('R') < pieces.indexOf('K') && pieces.indexOf('K') < pieces.lastIndexOf('R'), pieces);
+		}
+		assertEquals(960, Chess960StartPositions.getFENs().count());
+	}
+
+	@Test
+	void testReferenceCounts() throws IOException {
+		try (EpdReader reader = EpdReader.ofResource(getClass(), "/com/fathzer/chess/utils/test/Chess960StartPositions.epd")) {
+			final List<EpdReader.Entry> entries = reader.stream().toList();
+			assertEquals(Chess960StartPositions.getFENs().toList(), entries.stream().map(EpdReader.Entry::fen).toList());
+			final EpdReader.Entry standard = entries.get(518);
+			assertArrayEquals(new long[] {1, 20, 400, 8902, 197281, 4865609}, standard.counts());
+		}
+	}
+}
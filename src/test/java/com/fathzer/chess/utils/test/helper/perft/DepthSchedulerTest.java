@@ -0,0 +1,27 @@
+package com.fathzer.chess.utils.test.helper.perft;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class DepthSchedulerTest {
+
+	@Test
+	void test() {
+		final long[][] counts = {
+				{0, 20, 400, 8902, 197281},
+				{0, 48, 2039, 97862},
+				{0, 14},
+				{0, 6, 264, 9467, 422333}
+		};
+		assertArrayEquals(new int[] {2, 2, 0, 2}, DepthScheduler.schedule(counts, 2, 0));
+		assertArrayEquals(new int[] {3, 2, 0, 2}, DepthScheduler.schedule(counts, 2, 20000));
+		assertArrayEquals(new int[] {3, 2, 0, 3}, DepthScheduler.schedule(counts, 2, 30000));
+		// The cheapest upgrades are done first, the expensive one is skipped
+		assertArrayEquals(new int[] {3, 3, 0, 3}, DepthScheduler.schedule(counts, 2, 120000));
+		assertArrayEquals(new int[] {4, 3, 0, 4}, DepthScheduler.schedule(counts, 2, Long.MAX_VALUE));
+		assertEquals(197281+97862+422333, DepthScheduler.getLeaves(counts, new int[] {4, 3, 0, 4}));
+		assertArrayEquals(new int[] {1, 1, 1, 1}, DepthScheduler.schedule(counts, 1, 0));
+		assertThrows(IllegalArgumentException.class, () -> DepthScheduler.schedule(counts, 0, 0));
+	}
+}
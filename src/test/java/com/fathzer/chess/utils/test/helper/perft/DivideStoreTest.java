@@ -0,0 +1,38 @@
+package com.fathzer.chess.utils.test.helper.perft;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class DivideStoreTest {
+	@Test
+	void testAndThen() {
+		final Map<String, Long> first = new HashMap<>();
+		final Map<String, Long> second = new HashMap<>(Map.of("a", 2L, "b", 3L));
+		final DivideStore store = of(first).andThen(of(second));
+		first.put("a", 1L);
+		assertEquals(1, store.getCount("a"));
+		assertEquals(3, store.getCount("b"));
+		assertEquals(-1, store.getCount("c"));
+		store.setCount("c", 4);
+		assertEquals(4, first.get("c"));
+		assertEquals(4, second.get("c"));
+	}
+
+	private static DivideStore of(Map<String, Long> map) {
+		return new DivideStore() {
+			@Override
+			public long getCount(String move) {
+				return map.getOrDefault(move, -1L);
+			}
+
+			@Override
+			public void setCount(String move, long count) {
+				map.put(move, count);
+			}
+		};
+	}
+}
@@ -0,0 +1,58 @@
+package com.fathzer.chess.utils.test.helper.perft;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.NoSuchFileException;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class EpdReaderTest {
+	private static final String DATA = """
+			8/8/8/8/8/8/8/K6k w - - 0 1;D1 3;D2 9
+
+			# A comment
+			rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1 ;D1 20 ;D2 400 ;D3 8902
+			4k3/8/8/8/8/8/8/4K2R w K - 0 1;D1 15
+			""";
+
+	@Test
+	void test() throws IOException {
+		try (EpdReader reader = new EpdReader(new StringReader(DATA))) {
+			final List<EpdReader.Entry> entries = reader.stream().toList();
+			assertEquals(3, entries.size());
+			final EpdReader.Entry entry = entries.get(1);
+			assertEquals(4, entry.line());
+			assertEquals("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", entry.fen());
+			assertArrayEquals(new long[] {1, 20, 400, 8902}, entry.counts());
+			assertEquals(3, entry.getMaxDepth());
+			assertEquals(8902, entry.getCount(3));
+			assertTrue(entry.getCount(4) < 0);
+		}
+		try (EpdReader reader = new EpdReader(new StringReader(DATA)).withMinDepth(2)) {
+			assertEquals(List.of(1L, 4L), reader.stream().map(EpdReader.Entry::line).toList());
+		}
+	}
+
+	@Test
+	void testParse() {
+		assertArrayEquals(new long[] {1, -1, 400}, EpdReader.parse(1, "fen;D2 400").counts());
+		assertArrayEquals(new long[] {1}, EpdReader.parse(1, "fen").counts());
+		assertThrows(IllegalArgumentException.class, () -> EpdReader.parse(1, "fen;X1 20"));
+		assertThrows(IllegalArgumentException.class, () -> EpdReader.parse(1, "fen;D1"));
+		assertThrows(IllegalArgumentException.class, () -> EpdReader.parse(1, "fen;D1 20x"));
+	}
+
+	@Test
+	void testResource() throws IOException {
+		try (EpdReader reader = EpdReader.ofResource(getClass(), "/com/fathzer/jchess/perft/Perft.epd")) {
+			assertEquals(6969, reader.stream().count());
+		}
+		try (EpdReader reader = EpdReader.ofResource(getClass(), "/com/fathzer/jchess/perft/Perft960.epd")) {
+			assertTrue(reader.stream().allMatch(e -> e.getMaxDepth() >= 2 && !e.fen().endsWith(" ")));
+		}
+		assertThrows(NoSuchFileException.class, () -> EpdReader.ofResource(getClass(), "/unknown.epd"));
+	}
+}
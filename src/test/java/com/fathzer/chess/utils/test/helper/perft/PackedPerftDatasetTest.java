@@ -0,0 +1,103 @@
+package com.fathzer.chess.utils.test.helper.perft;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static com.fathzer.chess.utils.model.BoardPieceScanner.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fathzer.chess.utils.model.IBoard;
+import com.fathzer.chess.utils.model.PackedBoardFactory;
+import com.fathzer.chess.utils.model.PositionView;
+import com.fathzer.chess.utils.model.TestAdapter;
+import com.fathzer.chess.utils.model.Variant;
+
+class PackedPerftDatasetTest {
+	private static final String DATA = """
+			r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1;D1 48;D2 2039;D3 97862
+			rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3;D1 31
+			""";
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void test() throws IOException {
+		final Path path = dir.resolve("test.bin");
+		try (EpdReader reader = new EpdReader(new StringReader(DATA))) {
+			assertEquals(2, PackedPerftDataset.convert(reader, Variant.STANDARD, 2, path));
+		}
+		assertEquals(PackedPerftDataset.HEADER_SIZE + 2 * (PackedPosition.SIZE + 2 * Long.BYTES), Files.size(path));
+		try (PackedPerftDataset dataset = PackedPerftDataset.open(path)) {
+			assertEquals(2, dataset.size());
+			assertEquals(2, dataset.getMaxDepth());
+			assertEquals(Variant.STANDARD, dataset.getVariant());
+			final PackedPosition kiwipete = dataset.get(0);
+			assertEquals(ROOK, kiwipete.getPiece(0));
+			assertEquals(-ROOK, kiwipete.getPiece(63));
+			assertEquals(-QUEEN, kiwipete.getPiece(52));
+			assertEquals(NONE, kiwipete.getPiece(1));
+			assertEquals(7, kiwipete.getCastlingRookFile(true, true));
+			assertEquals(0, kiwipete.getCastlingRookFile(false, false));
+			assertTrue(kiwipete.isWhiteToMove());
+			assertEquals(2039, kiwipete.getCount(2));
+			assertTrue(kiwipete.getCount(3) < 0);
+			final PackedPosition ep = dataset.get(1);
+			assertEquals(5, ep.getEnPassantFile());
+			assertEquals(3, ep.getMoveNumber());
+			assertEquals(-1, ep.getCount(2));
+			assertEquals("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3", ep.toFEN(Variant.STANDARD));
+			assertThrows(IndexOutOfBoundsException.class, () -> dataset.get(2));
+		}
+		Files.write(path, new byte[] {1, 2, 3});
+		assertThrows(IOException.class, () -> PackedPerftDataset.open(path));
+	}
+
+	@Test
+	void testChess960() throws IOException {
+		final Path path = dir.resolve("960.bin");
+		try (EpdReader reader = EpdReader.ofResource(getClass(), "/com/fathzer/jchess/perft/Perft960.epd")) {
+			assertEquals(960, PackedPerftDataset.convert(reader, Variant.CHESS960, 6, path));
+		}
+		try (PackedPerftDataset dataset = PackedPerftDataset.open(path)) {
+			final PackedPosition position = dataset.get(0);
+			assertEquals("bqnb1rkr/pp3ppp/3ppn2/2p5/5P2/P2P4/NPP1P1PP/BQ1BNRKR w HFhf - 2 9", position.toFEN(Variant.CHESS960));
+			assertEquals(5, position.getCastlingRookFile(true, false));
+			doTest(PerftFixture.newAdapter(), dataset);
+			final Factory<?, ?> factory = new Factory<>(PerftFixture.newAdapter());
+			doTest(factory, dataset);
+			assertEquals(100, factory.calls);
+		}
+	}
+
+	private <B extends IBoard<M>, M> void doTest(TestAdapter<B, M> adapter, PackedPerftDataset dataset) {
+		final PerfT<M> perfT = new PerfT<>();
+		dataset.stream().limit(100).parallel().forEach(p -> assertEquals(p.getCount(2), perfT.divide(dataset.toBoard(adapter, p), 2).getNbLeaves()));
+	}
+
+	/** An adapter that creates its boards from packed positions. */
+	private static class Factory<B extends IBoard<M>, M> implements TestAdapter<B, M>, PackedBoardFactory<B> {
+		private final TestAdapter<B, M> adapter;
+		private int calls;
+
+		private Factory(TestAdapter<B, M> adapter) {
+			this.adapter = adapter;
+		}
+
+		@Override
+		public B fenToBoard(String fen, Variant variant) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public synchronized B toBoard(PositionView position, Variant variant) {
+			calls++;
+			return adapter.fenToBoard(position.toFEN(variant), variant);
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package com.fathzer.chess.utils.test.helper.perft;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static com.fathzer.chess.utils.test.helper.perft.PerftFixture.KIWIPETE;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import com.fathzer.chess.utils.model.IBoard;
+import com.fathzer.chess.utils.model.TestAdapter;
+import com.fathzer.chess.utils.model.Variant;
+import com.fathzer.chess.utils.test.AbstractAdaptableTest;
+
+class ParallelPerfTTest {
+	@Test
+	void test() {
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			doTest(PerftFixture.newAdapter(), pool);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private <B extends IBoard<M>, M> void doTest(TestAdapter<B, M> adapter, ForkJoinPool pool) {
+		final BoardForker<M> replayer = BoardForker.replay(adapter, KIWIPETE, Variant.STANDARD);
+		for (int splitDepth = 0; splitDepth <= 3; splitDepth++) {
+			final ParallelPerfT<M> perfT = new ParallelPerfT<>(replayer).withPool(pool).withSplitDepth(splitDepth);
+			final PerfT.Result<M> result = perfT.divide(adapter.fenToBoard(KIWIPETE, Variant.STANDARD), 3);
+			assertEquals(97862, result.getNbLeaves());
+			assertEquals(48, result.divides().size());
+		}
+
+		final ParallelPerfT<M> perfT = new ParallelPerfT<>(BoardForker.of(adapter, KIWIPETE, Variant.STANDARD)).withPool(pool);
+		final B board = adapter.fenToBoard(KIWIPETE, Variant.STANDARD);
+		assertEquals(48, perfT.divide(board, 1).getNbLeaves());
+		final List<String> expected = new PerfT<M>().divide(board, 2).divides().stream().map(Divide::toString).toList();
+		assertEquals(expected, perfT.divide(board, 2).divides().stream().map(Divide::toString).toList());
+		assertThrows(IllegalArgumentException.class, () -> perfT.divide(board, 0));
+		assertThrows(IllegalArgumentException.class, () -> perfT.withSplitDepth(-1));
+	}
+
+	@Test
+	void testReplay() {
+		doTestReplay(PerftFixture.newAdapter());
+	}
+
+	private <B extends IBoard<M>, M> void doTestReplay(TestAdapter<B, M> adapter) {
+		final BoardForker<M> replayer = BoardForker.replay(adapter, AbstractAdaptableTest.STANDARD_START_FEN, Variant.STANDARD);
+		final IBoard<M> board = replayer.fork(null, List.of("e2e4", "e7e5", "g1f3"));
+		assertEquals(29, new PerfT<M>().divide(board, 1).getNbLeaves());
+		final List<String> illegal = List.of("e2e4", "e2e4");
+		assertThrows(IllegalArgumentException.class, () -> replayer.fork(null, illegal));
+	}
+}
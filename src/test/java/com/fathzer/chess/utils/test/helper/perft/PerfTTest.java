@@ -0,0 +1,208 @@
+package com.fathzer.chess.utils.test.helper.perft;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static com.fathzer.chess.utils.test.helper.perft.PerftFixture.KIWIPETE;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fathzer.chess.utils.model.BoardPieceScanner;
+import com.fathzer.chess.utils.model.BulkCountingBoard;
+import com.fathzer.chess.utils.model.IBoard;
+import com.fathzer.chess.utils.model.IntMoveBoard;
+import com.fathzer.chess.utils.model.MoveClassifier;
+import com.fathzer.chess.utils.model.TestAdapter;
+import com.fathzer.chess.utils.model.Variant;
+import com.fathzer.chess.utils.test.jchess.JChessAdapter;
+
+class PerfTTest {
+	@Test
+	void testHashed() {
+		doTestHashed(PerftFixture.newAdapter());
+	}
+
+	private <B extends IBoard<M>, M> void doTestHashed(TestAdapter<B, M> adapter) {
+		final B board = adapter.fenToBoard(KIWIPETE, Variant.STANDARD);
+		final List<String> expected = new PerfT<M>().divide(board, 3).divides().stream().map(Divide::toString).toList();
+		final PerfT<M> perfT = new PerfT<M>().withTranspositionTable(new TranspositionTable(1));
+		assertEquals(expected, perfT.divide(board, 3).divides().stream().map(Divide::toString).toList());
+		// Second run is served by the table
+		assertEquals(expected, perfT.divide(board, 3).divides().stream().map(Divide::toString).toList());
+		assertEquals(4085603, perfT.divide(board, 4).getNbLeaves());
+	}
+
+	@Test
+	void testAllocatedBytes() {
+		final PerfT.Result<Object> unknown = new PerfT.Result<>(List.of());
+		assertTrue(unknown.allocatedBytes() < 0);
+		assertTrue(unknown.getAllocatedBytesPerLeaf() < 0);
+		final PerfT.Result<String> result = new PerfT.Result<>(List.of(new Divide<>("e2e4", 20), new Divide<>("d2d4", 20)), 400);
+		assertEquals(10.0, result.getAllocatedBytesPerLeaf(), 0.001);
+		doTestAllocatedBytes(PerftFixture.newAdapter());
+	}
+
+	private <B extends IBoard<M>, M> void doTestAllocatedBytes(TestAdapter<B, M> adapter) {
+		final PerfT.Result<M> result = new PerfT<M>().divide(adapter.fenToBoard(KIWIPETE, Variant.STANDARD), 2);
+		assertEquals(2039, result.getNbLeaves());
+		assertTrue(result.allocatedBytes() >= 0);
+	}
+
+	@Test
+	void testIntMoves() {
+		doTestIntMoves(PerftFixture.newAdapter());
+	}
+
+	private <B extends IBoard<M>, M> void doTestIntMoves(TestAdapter<B, M> adapter) {
+		final IntMoves<M> board = new IntMoves<>(adapter.fenToBoard(KIWIPETE, Variant.STANDARD));
+		final PerfT<M> perfT = new PerfT<>();
+		assertEquals(48, perfT.divide(board, 1).getNbLeaves());
+		assertEquals(97862, perfT.divide(board, 3).getNbLeaves());
+		assertEquals(97862, perfT.withTranspositionTable(new TranspositionTable(1)).divide(board, 3).getNbLeaves());
+	}
+
+	@Test
+	void testBulkCounting() {
+		doTestBulkCounting(PerftFixture.newAdapter());
+	}
+
+	private <B extends IBoard<M>, M> void doTestBulkCounting(TestAdapter<B, M> adapter) {
+		final Counting<M> board = new Counting<>(adapter.fenToBoard(KIWIPETE, Variant.STANDARD));
+		final PerfT<M> perfT = new PerfT<>();
+		assertEquals(48, perfT.divide(board, 1).getNbLeaves());
+		assertEquals(0, board.calls);
+		assertEquals(97862, perfT.divide(board, 3).getNbLeaves());
+		assertEquals(2039, board.calls);
+	}
+
+	@Test
+	void testStatistics() {
+		final JChessAdapter adapter = new JChessAdapter();
+		doTestStatistics(adapter, adapter);
+	}
+
+	private <B extends IBoard<M>, M> void doTestStatistics(TestAdapter<B, M> adapter, BoardPieceScanner<B> scanner) {
+		final MoveClassifier<B, M> classifier = (board, move) -> {
+			final String uci = board.toUCI(move);
+			final String from = uci.substring(0, 2);
+			final String to = uci.substring(2, 4);
+			final int piece = scanner.getPiece(board, from);
+			final int captured = scanner.getPiece(board, to);
+			if (Math.abs(piece)==BoardPieceScanner.KING && (Math.abs(from.charAt(0)-to.charAt(0))==2 || captured*piece>0)) {
+				return MoveClassifier.CASTLING;
+			}
+			int flags = uci.length()==5 ? MoveClassifier.PROMOTION : 0;
+			if (captured!=BoardPieceScanner.NONE) {
+				flags |= MoveClassifier.CAPTURE;
+			} else if (Math.abs(piece)==BoardPieceScanner.PAWN && from.charAt(0)!=to.charAt(0)) {
+				flags |= MoveClassifier.CAPTURE | MoveClassifier.EN_PASSANT;
+			}
+			return flags;
+		};
+		final B board = adapter.fenToBoard(KIWIPETE, Variant.STANDARD);
+		final PerfT<M> perfT = new PerfT<M>().withTranspositionTable(new TranspositionTable(1));
+		assertNull(perfT.divide(board, 2).statistics());
+		perfT.withStatistics(classifier);
+		PerfT.Result<M> result = perfT.divide(board, 1);
+		assertEquals(new Statistics(8, 0, 2, 0, 0, 0, 0, 0), result.statistics());
+		assertTrue(result.statistics().toString().contains("Discovered checks"));
+		// Unknown flags are ignored
+		final MoveClassifier<B, M> unknownFlags = (b, m) -> classifier.classify(b, m) | 256 | Integer.MIN_VALUE;
+		result = new PerfT<M>().withStatistics(unknownFlags).divide(board, 1);
+		assertEquals(new Statistics(8, 0, 2, 0, 0, 0, 0, 0), result.statistics());
+		result = perfT.divide(board, 2);
+		assertEquals(2039, result.getNbLeaves());
+		assertEquals(new Statistics(351, 1, 91, 0, 0, 0, 0, 0), result.statistics());
+		result = new ParallelPerfT<M>(BoardForker.of(adapter, KIWIPETE, Variant.STANDARD)).withPerfT(perfT).divide(board, 3);
+		assertEquals(97862, result.getNbLeaves());
+		assertEquals(new Statistics(17102, 45, 3162, 0, 0, 0, 0, 0), result.statistics());
+	}
+
+	/** A board that delegates everything to another board. */
+	private static class Wrapper<M> implements IBoard<M> {
+		protected final IBoard<M> board;
+
+		private Wrapper(IBoard<M> board) {
+			this.board = board;
+		}
+
+		@Override
+		public List<M> getMoves() {
+			return board.getMoves();
+		}
+
+		@Override
+		public String toUCI(M move) {
+			return board.toUCI(move);
+		}
+
+		@Override
+		public boolean makeMove(M mv) {
+			return board.makeMove(mv);
+		}
+
+		@Override
+		public void unmakeMove() {
+			board.unmakeMove();
+		}
+	}
+
+	/** A BulkCountingBoard that counts the calls to countLegalMoves. */
+	private static class Counting<M> extends Wrapper<M> implements BulkCountingBoard<M> {
+		private int calls;
+
+		private Counting(IBoard<M> board) {
+			super(board);
+		}
+
+		@Override
+		public int countLegalMoves() {
+			calls++;
+			return (int) board.getMoves().stream().filter(board::isLegal).count();
+		}
+	}
+
+	/** An IntMoveBoard that represents a move by its index in the list returned by the board at each ply. */
+	private static class IntMoves<M> extends Wrapper<M> implements IntMoveBoard<M> {
+		private final List<List<M>> plies = new ArrayList<>();
+		private int ply;
+
+		private IntMoves(IBoard<M> board) {
+			super(board);
+		}
+
+		@Override
+		public int getMoves(int[] buffer, int offset) {
+			final List<M> moves = board.getMoves();
+			while (plies.size()<=ply) {
+				plies.add(null);
+			}
+			plies.set(ply, moves);
+			for (int i = 0; i < moves.size(); i++) {
+				buffer[offset+i] = i;
+			}
+			return moves.size();
+		}
+
+		@Override
+		public boolean makeMove(int move) {
+			return makeMove(plies.get(ply).get(move));
+		}
+
+		@Override
+		public boolean makeMove(M mv) {
+			final boolean result = board.makeMove(mv);
+			if (result) {
+				ply++;
+			}
+			return result;
+		}
+
+		@Override
+		public void unmakeMove() {
+			board.unmakeMove();
+			ply--;
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package com.fathzer.chess.utils.test.helper.perft;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static com.fathzer.chess.utils.test.helper.perft.PerftFixture.KIWIPETE;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+import com.fathzer.chess.utils.model.IBoard;
+import com.fathzer.chess.utils.model.TestAdapter;
+import com.fathzer.chess.utils.model.Variant;
+import com.fathzer.chess.utils.test.jchess.JChessAdapter;
+
+class PerftBisectorTest {
+	@Test
+	void test() {
+		final JChessAdapter reference = new JChessAdapter();
+		final TestAdapter<IBoard<Object>, Object> buggy = buggy(reference, "e8c8");
+
+		assertTrue(new PerftBisector(reference, reference).bisect(KIWIPETE, Variant.STANDARD, 3).isEmpty());
+
+		final Optional<PerftBisector.Fault> fault = new PerftBisector(buggy, reference).bisect(KIWIPETE, Variant.STANDARD, 3);
+		assertTrue(fault.isPresent());
+		assertEquals(1, fault.get().path().size());
+		assertEquals(List.of("e8c8"), fault.get().missingMoves());
+		assertTrue(fault.get().unexpectedMoves().isEmpty());
+
+		final PerftBisector bisector = new PerftBisector(buggy, reference);
+		assertThrows(IllegalArgumentException.class, () -> bisector.bisect(KIWIPETE, Variant.STANDARD, 0));
+	}
+
+	/** Gets an adapter whose boards never generate a given move. */
+	@SuppressWarnings("unchecked")
+	private static TestAdapter<IBoard<Object>, Object> buggy(TestAdapter<?, ?> adapter, String uciMove) {
+		return (fen, variant) -> new Buggy<>((IBoard<Object>) adapter.fenToBoard(fen, variant), uciMove);
+	}
+
+	private static class Buggy<M> implements IBoard<M> {
+		private final IBoard<M> board;
+		private final String ignored;
+
+		private Buggy(IBoard<M> board, String ignored) {
+			this.board = board;
+			this.ignored = ignored;
+		}
+
+		@Override
+		public List<M> getMoves() {
+			return board.getMoves().stream().filter(m -> !board.toUCI(m).equals(ignored)).toList();
+		}
+
+		@Override
+		public String toUCI(M move) {
+			return board.toUCI(move);
+		}
+
+		@Override
+		public boolean makeMove(M mv) {
+			return board.makeMove(mv);
+		}
+
+		@Override
+		public void unmakeMove() {
+			board.unmakeMove();
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package com.fathzer.chess.utils.test.helper.perft;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static com.fathzer.chess.utils.test.helper.perft.PerftFixture.KIWIPETE;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fathzer.chess.utils.model.IBoard;
+import com.fathzer.chess.utils.model.TestAdapter;
+import com.fathzer.chess.utils.model.Variant;
+
+class PerftCacheTest {
+	@Test
+	void test(@TempDir Path dir) throws IOException {
+		doTest(PerftFixture.newAdapter(), dir.resolve("cache.bin"));
+	}
+
+	private <B extends IBoard<M>, M> void doTest(TestAdapter<B, M> adapter, Path path) throws IOException {
+		final PerfT<M> perfT = new PerfT<>();
+		try (PerftCache cache = PerftCache.open(path, "v1", 1)) {
+			assertEquals(PerftCache.HEADER_SIZE + 1024 * 1024, Files.size(path));
+			final DivideStore root = cache.getRoot(KIWIPETE, Variant.STANDARD, 3);
+			assertEquals(-1, root.getCount("e1g1"));
+			final PerfT.Result<M> result = perfT.divide(adapter.fenToBoard(KIWIPETE, Variant.STANDARD), 3, root);
+			assertEquals(97862, result.getNbLeaves());
+			assertNotNull(result.duration());
+			assertEquals(2059, root.getCount("e1g1"));
+			assertEquals(-1, cache.getRoot(KIWIPETE, Variant.STANDARD, 2).getCount("e1g1"));
+			assertEquals(-1, cache.getRoot(KIWIPETE, Variant.CHESS960, 3).getCount("e1g1"));
+			// Change a count to check that cached moves are not searched again
+			root.setCount("e1g1", 2060);
+		}
+		try (PerftCache cache = PerftCache.open(path, "v1", 1)) {
+			final PerfT.Result<M> result = perfT.divide(adapter.fenToBoard(KIWIPETE, Variant.STANDARD), 3, cache.getRoot(KIWIPETE, Variant.STANDARD, 3));
+			assertNull(result.duration());
+			assertEquals(97863, result.getNbLeaves());
+		}
+		// Another fingerprint clears the cache
+		try (PerftCache cache = PerftCache.open(path, "v2", 1)) {
+			assertEquals(-1, cache.getRoot(KIWIPETE, Variant.STANDARD, 3).getCount("e1g1"));
+		}
+		// So does another size
+		try (PerftCache cache = PerftCache.open(path, "v2", 2)) {
+			assertEquals(PerftCache.HEADER_SIZE + 2 * 1024 * 1024, Files.size(path));
+		}
+		assertThrows(IllegalArgumentException.class, () -> PerftCache.open(path, "v2", 0));
+	}
+
+	@Test
+	void testReplacement(@TempDir Path dir) throws IOException {
+		try (PerftCache cache = PerftCache.open(dir.resolve("cache.bin"), "v1", 1)) {
+			// More entries than the cache can contain
+			final DivideStore root = cache.getRoot(KIWIPETE, Variant.STANDARD, 1);
+			final int count = 200000;
+			for (int i = 0; i < count; i++) {
+				root.setCount(Integer.toString(i), i);
+			}
+			int found = 0;
+			for (int i = 0; i < count; i++) {
+				final long value = root.getCount(Integer.toString(i));
+				assertTrue(value < 0 || value == i);
+				if (value >= 0) {
+					found++;
+				}
+			}
+			assertTrue(found > count / 4, "Only " + found + " entries found");
+			assertTrue(found <= 65536);
+		}
+	}
+}
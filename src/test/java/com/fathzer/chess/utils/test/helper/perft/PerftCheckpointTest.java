@@ -0,0 +1,67 @@
+package com.fathzer.chess.utils.test.helper.perft;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static com.fathzer.chess.utils.test.helper.perft.PerftFixture.KIWIPETE;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fathzer.chess.utils.model.IBoard;
+import com.fathzer.chess.utils.model.TestAdapter;
+import com.fathzer.chess.utils.model.Variant;
+
+class PerftCheckpointTest {
+	@Test
+	void test(@TempDir Path dir) throws IOException {
+		doTest(PerftFixture.newAdapter(), dir.resolve("checkpoint.txt"));
+	}
+
+	private <B extends IBoard<M>, M> void doTest(TestAdapter<B, M> adapter, Path path) throws IOException {
+		final PerfT<M> perfT = new PerfT<>();
+		final PerfT.Result<M> expected = perfT.divide(adapter.fenToBoard(KIWIPETE, Variant.STANDARD), 3);
+		try (PerftCheckpoint checkpoint = PerftCheckpoint.open(path)) {
+			final PerftCheckpoint.Root root = checkpoint.getRoot(KIWIPETE, Variant.STANDARD, 3);
+			assertEquals(-1, root.getCount("e1g1"));
+			final PerfT.Result<M> result = perfT.divide(adapter.fenToBoard(KIWIPETE, Variant.STANDARD), 3, root);
+			assertEquals(97862, result.getNbLeaves());
+			assertNotNull(result.duration());
+			assertEquals(48, checkpoint.size());
+			// Counts are written as soon as they are recorded
+			assertEquals(48, Files.readAllLines(path).size());
+			assertEquals(2059, root.getCount("e1g1"));
+			assertEquals(-1, checkpoint.getRoot(KIWIPETE, Variant.STANDARD, 2).getCount("e1g1"));
+		}
+
+		// Simulate an interruption: remove the last counts and truncate the last line.
+		// The first count is also changed to check that recorded moves are not searched again
+		final List<String> lines = new ArrayList<>(Files.readAllLines(path));
+		assertEquals(48, lines.size());
+		final String first = lines.get(0);
+		final int index = first.lastIndexOf(';');
+		final String move = first.split(";")[3];
+		lines.set(0, first.substring(0, index + 1) + (Long.parseLong(first.substring(index + 1)) + 1));
+		Files.write(path, lines.subList(0, 40));
+		Files.writeString(path, lines.get(40).substring(0, lines.get(40).length() - 2), StandardOpenOption.APPEND);
+
+		try (PerftCheckpoint checkpoint = PerftCheckpoint.open(path)) {
+			assertEquals(40, checkpoint.size());
+			final PerftCheckpoint.Root root = checkpoint.getRoot(KIWIPETE, Variant.STANDARD, 3);
+			final PerfT.Result<M> result = perfT.divide(adapter.fenToBoard(KIWIPETE, Variant.STANDARD), 3, root);
+			assertNull(result.duration());
+			assertEquals(expected.getNbLeaves() + 1, result.getNbLeaves());
+			assertEquals(48, checkpoint.size());
+			assertEquals(expected.divides().stream().filter(d -> adapter.fenToBoard(KIWIPETE, Variant.STANDARD).toUCI(d.move()).equals(move)).findAny().get().count() + 1,
+					root.getCount(move));
+		}
+		try (PerftCheckpoint checkpoint = PerftCheckpoint.open(path)) {
+			assertEquals(48, checkpoint.size());
+		}
+	}
+}
@@ -0,0 +1,22 @@
+package com.fathzer.chess.utils.test.helper.perft;
+
+import com.fathzer.chess.utils.model.TestAdapter;
+import com.fathzer.chess.utils.test.jchess.JChessAdapter;
+
+/** The position and the adapter shared by the tests of the perft helpers. */
+final class PerftFixture {
+	/** The <a href="https://www.chessprogramming.org/Perft_Results#Position_2">Kiwipete</a> position (48 moves, 2039 leaves at depth 2, 97862 at depth 3). */
+	static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+	private PerftFixture() {
+		super();
+	}
+
+	/** Creates the adapter the perft helpers are tested with.
+	 * <br>Pass it to a generic method (for instance <code>&lt;B extends IBoard&lt;M&gt;, M&gt; void doTest(TestAdapter&lt;B, M&gt; adapter)</code>) to name its types.
+	 * @return a new adapter
+	 */
+	static TestAdapter<?, ?> newAdapter() {
+		return new JChessAdapter();
+	}
+}
@@ -0,0 +1,83 @@
+package com.fathzer.chess.utils.test.helper.perft;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fathzer.chess.utils.model.Variant;
+import com.fathzer.chess.utils.test.helper.perft.PerftReport.Format;
+
+class PerftReportTest {
+
+	@Test
+	void test() throws IOException {
+		final PerftReport report = new PerftReport("my \"adapter\"");
+		report.add("8/8/8/8/8/8/8/K6k w - - 0 1 ", Variant.STANDARD, 2, new PerfT.Result<>(List.of(new Divide<>("a1a2", 3)), -1, null, Duration.ofMillis(500), 4));
+		// Result with unknown duration is ignored
+		report.add("8/8/8/8/8/8/8/K6k w - - 0 1", Variant.STANDARD, 2, new PerfT.Result<>(List.of(new Divide<>("a1a2", 3))));
+		assertEquals(1, report.getEntries().size());
+		final PerftReport.Entry entry = report.getEntries().get(0);
+		assertEquals("8/8/8/8/8/8/8/K6k w - - 0 1", entry.fen());
+		assertEquals(6, entry.getNps());
+		assertEquals(4, entry.threads());
+
+		final StringWriter csv = new StringWriter();
+		report.write(csv, Format.CSV);
+		final String[] lines = csv.toString().split("\\R");
+		assertEquals(2, lines.length);
+		assertEquals("\"8/8/8/8/8/8/8/K6k w - - 0 1\",STANDARD,2,3,500000000,6,4", lines[1]);
+
+		final StringWriter json = new StringWriter();
+		report.write(json, Format.JSON);
+		assertTrue(json.toString().startsWith("{\"adapter\":\"my \\\"adapter\\\"\""));
+		assertTrue(json.toString().contains("\"leaves\":3,\"sequentialDurationNanos\":500000000,\"sequentialNps\":6,"));
+		assertTrue(json.toString().contains("{\"fen\":\"8/8/8/8/8/8/8/K6k w - - 0 1\",\"variant\":\"STANDARD\",\"depth\":2,\"leaves\":3,\"durationNanos\":500000000,\"nps\":6,\"threads\":4}"));
+
+		assertEquals(Format.CSV, Format.of(Path.of("report.CSV")));
+		assertEquals(Format.JSON, Format.of(Path.of("report.json")));
+	}
+
+	@Test
+	void testNps() {
+		assertEquals(-1, new PerfT.Result<>(List.of(new Divide<>("a1a2", 3))).getNps());
+		assertEquals(3000, new PerfT.Result<>(List.of(new Divide<>("a1a2", 3)), -1, null, Duration.ofMillis(1), 1).getNps());
+	}
+
+	@Test
+	void testMerge(@TempDir Path dir) throws IOException {
+		final PerftReport shard1 = new PerftReport("my \"adapter\"");
+		shard1.add(new PerftReport.Entry("8/8/8/8/8/8/8/K6k w - - 0 1", Variant.STANDARD, 2, 9, Duration.ofMillis(3), 1));
+		shard1.add(new PerftReport.Entry("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", Variant.STANDARD, 3, 8902, Duration.ofMillis(20), 4));
+		final PerftReport shard2 = new PerftReport("my \"adapter\"");
+		shard2.add(new PerftReport.Entry("bqnb1rkr/pp3ppp/3ppn2/2p5/5P2/P2P4/NPP1P1PP/BQ1BNRKR w HFhf - 2 9", Variant.CHESS960, 1, 21, Duration.ofNanos(1500), 1));
+
+		final Path json1 = dir.resolve("shard1.json");
+		shard1.write(json1);
+		final Path csv2 = dir.resolve("shard2.csv");
+		shard2.write(csv2);
+		final PerftReport read1 = PerftReport.read(json1);
+		assertEquals(shard1.getEntries(), read1.getEntries());
+		assertEquals(shard2.getEntries(), PerftReport.read(csv2).getEntries());
+
+		final Path merged = dir.resolve("merged.json");
+		PerftReport.main(new String[] {merged.toString(), json1.toString(), csv2.toString()});
+		final List<PerftReport.Entry> expected = new ArrayList<>(shard1.getEntries());
+		expected.addAll(shard2.getEntries());
+		assertEquals(expected, PerftReport.read(merged).getEntries());
+		assertTrue(Files.readString(merged).startsWith("{\"adapter\":\"my \\\"adapter\\\"\""));
+		assertEquals(expected, PerftReport.merge(List.of(shard1, shard2)).getEntries());
+
+		final Path invalid = dir.resolve("invalid.csv");
+		Files.writeString(invalid, "fen,variant,depth,leaves,durationNanos,nps,threads\nnot a report\n");
+		assertThrows(IOException.class, () -> PerftReport.read(invalid));
+	}
+}
@@ -0,0 +1,53 @@
+package com.fathzer.chess.utils.test.helper.perft;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+
+class ShardTest {
+
+	@Test
+	void testParse() {
+		assertEquals(new Shard(3, 16), Shard.parse("3/16"));
+		assertEquals(new Shard(1, 1), Shard.parse(" 1 / 1 "));
+		assertEquals("3/16", new Shard(3, 16).toString());
+		assertThrows(IllegalArgumentException.class, () -> Shard.parse("3"));
+		assertThrows(IllegalArgumentException.class, () -> Shard.parse("a/2"));
+		assertThrows(IllegalArgumentException.class, () -> Shard.parse("0/2"));
+		assertThrows(IllegalArgumentException.class, () -> Shard.parse("3/2"));
+		assertThrows(IllegalArgumentException.class, () -> new Shard(1, 0));
+	}
+
+	@Test
+	void testAssign() {
+		assertArrayEquals(new int[] {1, 2, 3, 3}, Shard.assign(new long[] {10, 8, 5, 4}, 3));
+		// Equal costs are distributed round robin
+		assertArrayEquals(new int[] {1, 2, 1, 2}, Shard.assign(new long[] {1, 1, 1, 1}, 2));
+		// Unknown costs do not change the load
+		assertArrayEquals(new int[] {1, 2, 2}, Shard.assign(new long[] {5, -1, 3}, 2));
+	}
+
+	@Test
+	void testSelect() {
+		final long[] costs = LongStream.range(0, 1000).map(i -> (i * 7919) % 1013 + 1).toArray();
+		final long[] keys = LongStream.range(0, costs.length).map(i -> 2 * i + 1).toArray();
+		final int count = 7;
+		final long[][] selected = IntStream.rangeClosed(1, count).mapToObj(i -> new Shard(i, count).select(keys, costs)).toArray(long[][]::new);
+		// Shards are sorted, disjoint and cover all the keys
+		final long[] all = Arrays.stream(selected).flatMapToLong(Arrays::stream).sorted().toArray();
+		assertArrayEquals(keys, all);
+		Arrays.stream(selected).forEach(s -> assertArrayEquals(LongStream.of(s).sorted().toArray(), s));
+		// Shards are balanced
+		final long total = LongStream.of(costs).sum();
+		for (long[] shard : selected) {
+			final long load = LongStream.of(shard).map(k -> costs[(int) (k / 2)]).sum();
+			assertTrue(Math.abs(load - total / count) <= 1013, () -> "Load is " + load);
+		}
+		// Selection is deterministic
+		assertArrayEquals(selected[2], new Shard(3, count).select(keys, costs));
+	}
+}
@@ -0,0 +1,39 @@
+package com.fathzer.chess.utils.test.helper.perft;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class TranspositionTableTest {
+
+	@Test
+	void test() {
+		assertThrows(IllegalArgumentException.class, () -> new TranspositionTable(0));
+		final TranspositionTable table = new TranspositionTable(1);
+		assertTrue(table.get(1234, 3) < 0);
+		table.put(1234, 3, 97862);
+		assertEquals(97862, table.get(1234, 3));
+		assertTrue(table.get(1234, 2) < 0);
+		assertTrue(table.get(1235, 3) < 0);
+
+		// Same bucket, lower depth => goes to the always replace entry
+		final long sameBucket = 1234 + (1L << 40);
+		table.put(sameBucket, 2, 2039);
+		assertEquals(97862, table.get(1234, 3));
+		assertEquals(2039, table.get(sameBucket, 2));
+		// Deeper => replaces the depth preferred entry
+		table.put(sameBucket, 4, 4085603);
+		assertTrue(table.get(1234, 3) < 0);
+		assertEquals(4085603, table.get(sameBucket, 4));
+		assertEquals(2039, table.get(sameBucket, 2));
+
+		// Too big values are ignored
+		table.put(5678, 256, 1);
+		assertTrue(table.get(5678, 256) < 0);
+		table.put(5678, 3, 1L << 56);
+		assertTrue(table.get(5678, 3) < 0);
+
+		table.clear();
+		assertTrue(table.get(sameBucket, 4) < 0);
+	}
+}
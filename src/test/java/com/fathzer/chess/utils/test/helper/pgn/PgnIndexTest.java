@@ -0,0 +1,125 @@
+package com.fathzer.chess.utils.test.helper.pgn;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PgnIndexTest {
+	private static final String PGN = "\uFEFF[Event \"First\"]\n" +
+			"[Site \"A string with { and [\"]\n" +
+			"\n" +
+			"1. e4 {A comment\n" +
+			"[that looks like a tag]} e5 1-0\n" +
+			"\n" +
+			"% An escaped line {\n" +
+			"[Event \"Second\"]\n" +
+			"[Site \"Quote \\\" in a string\"]\n" +
+			"\n" +
+			"1. d4 ; a comment {\n" +
+			"d5 *\n" +
+			"[Event \"Third\"]\n" +
+			"\n" +
+			"1. c4 0-1\n";
+
+	@Test
+	void test(@TempDir Path dir) throws IOException {
+		final Path path = dir.resolve("games.pgn");
+		Files.writeString(path, PGN, StandardCharsets.UTF_8);
+		try (PgnIndex index = PgnIndex.open(path)) {
+			assertEquals(3, index.size());
+			assertEquals(0, index.getOffset(0));
+			assertEquals(1, index.getLine(0));
+			assertEquals(8, index.getLine(1));
+			assertEquals(13, index.getLine(2));
+			assertEquals(PGN.getBytes(StandardCharsets.UTF_8).length, index.getOffset(3));
+			assertThrows(IndexOutOfBoundsException.class, () -> index.getLine(3));
+
+			assertEquals(List.of("start 8", "Second", "d4", "d5", "start 13", "Third", "c4"), read(index.getReader(1, 3)));
+			assertEquals(List.of("start 1", "First", "e4", "e5"), read(index.getReader(0, 1)));
+			assertEquals(List.of(), read(index.getReader(3, 3)));
+			assertThrows(IndexOutOfBoundsException.class, () -> index.getReader(2, 4));
+
+			assertEquals(List.of(new PgnIndex.Range(0, 3)), index.partition(1));
+			final List<PgnIndex.Range> ranges = index.partition(10);
+			assertEquals(3, ranges.size());
+			assertEquals(List.of(new PgnIndex.Range(1, 2), new PgnIndex.Range(2, 3)), index.partition(1, 3, 2));
+			assertThrows(IllegalArgumentException.class, () -> index.partition(0));
+		}
+		final Path indexPath = dir.resolve("games.pgn" + PgnIndex.EXTENSION);
+		assertTrue(Files.isRegularFile(indexPath));
+		assertEquals(PgnIndex.HEADER_SIZE + 3 * 16, Files.size(indexPath));
+
+		// The index is reused while the PGN file is not modified
+		Files.write(indexPath, Files.readAllBytes(indexPath));
+		final FileTime indexTime = FileTime.fromMillis(1000);
+		Files.setLastModifiedTime(indexPath, indexTime);
+		try (PgnIndex index = PgnIndex.open(path)) {
+			assertEquals(3, index.size());
+		}
+		assertEquals(indexTime, Files.getLastModifiedTime(indexPath));
+
+		// It is rebuilt when the PGN file changes
+		Files.writeString(path, "[Event \"Only\"]\n\n1. e4 *\n", StandardCharsets.UTF_8);
+		try (PgnIndex index = PgnIndex.open(path)) {
+			assertEquals(1, index.size());
+			assertEquals(List.of("start 1", "Only", "e4"), read(index.getReader(0, 1)));
+		}
+	}
+
+	@Test
+	void testPartition(@TempDir Path dir) throws IOException {
+		final Path path = dir.resolve("games.pgn");
+		final StringBuilder pgn = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			pgn.append("[Event \"").append(i).append("\"]\n\n1. e4 e5 ").append("2. Nf3 Nc6 ".repeat(i % 10)).append("*\n\n");
+		}
+		Files.writeString(path, pgn);
+		try (PgnIndex index = PgnIndex.open(path, dir.resolve("other.idx"))) {
+			assertEquals(1000, index.size());
+			final List<PgnIndex.Range> ranges = index.partition(8);
+			assertEquals(8, ranges.size());
+			long expectedFrom = 0;
+			for (PgnIndex.Range range : ranges) {
+				assertEquals(expectedFrom, range.from());
+				expectedFrom = range.to();
+				final long bytes = index.getOffset(range.to()) - index.getOffset(range.from());
+				assertEquals(Files.size(path) / 8.0, bytes, Files.size(path) / 50.0);
+			}
+			assertEquals(1000, expectedFrom);
+		}
+	}
+
+	private static List<String> read(PgnReader reader) throws IOException {
+		final List<String> events = new ArrayList<>();
+		try (reader) {
+			reader.read(new PgnReader.Handler() {
+				@Override
+				public void startGame(long line) {
+					events.add("start " + line);
+				}
+
+				@Override
+				public void tag(CharSequence name, CharSequence value) {
+					if ("Event".contentEquals(name)) {
+						events.add(value.toString());
+					}
+				}
+
+				@Override
+				public void move(CharSequence san, int depth) {
+					events.add(san.toString());
+				}
+			});
+		}
+		return events;
+	}
+}
@@ -0,0 +1,119 @@
+package com.fathzer.chess.utils.test.helper.pgn;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class PgnReaderTest {
+	private static final String PGN = "[Event \"First\"]\n" +
+			"[Site \"Somewhere\"]\n" +
+			"\n" +
+			"1. e4 {best by test} e5 2. Nf3 (2. f4 $2 exf4 (2... d5) 3. Nf3) 2... Nc6!? 1-0\n" +
+			"\n" +
+			"[Event \"Second\"]\n" +
+			"\n" +
+			"1. d4 d5\n" +
+			"[Event \"Third\"]\n" +
+			"\n" +
+			"1. c4 *";
+
+	/** A handler that records the events as strings. */
+	private static class Recorder implements PgnReader.Handler {
+		private final List<String> events = new ArrayList<>();
+
+		@Override
+		public void startGame(long line) {
+			events.add("start " + line);
+		}
+
+		@Override
+		public void tag(CharSequence name, CharSequence value) {
+			events.add(name + "=" + value);
+		}
+
+		@Override
+		public void move(CharSequence san, int depth) {
+			events.add(depth == 0 ? san.toString() : san + "/" + depth);
+		}
+
+		@Override
+		public void startVariation() {
+			events.add("(");
+		}
+
+		@Override
+		public void endVariation() {
+			events.add(")");
+		}
+
+		@Override
+		public void comment(CharSequence comment) {
+			events.add("{" + comment + "}");
+		}
+
+		@Override
+		public void nag(int nag) {
+			events.add("$" + nag);
+		}
+
+		@Override
+		public void endGame(CharSequence result) {
+			events.add("end " + result);
+		}
+	}
+
+	@Test
+	void test() throws IOException {
+		try (PgnReader reader = new PgnReader(new StringReader(PGN))) {
+			final Recorder recorder = new Recorder();
+			assertTrue(reader.readGame(recorder));
+			assertEquals(List.of("start 1", "Event=First", "Site=Somewhere", "e4", "{best by test}", "e5", "Nf3", "(", "f4/1", "$2", "exf4/1", "(", "d5/2", ")",
+					"Nf3/1", ")", "Nc6", "$5", "end 1-0"), recorder.events);
+			recorder.events.clear();
+			// Games without termination marker
+			assertEquals(2, reader.read(recorder));
+			assertEquals(List.of("start 6", "Event=Second", "d4", "d5", "end null", "start 9", "Event=Third", "c4", "end *"), recorder.events);
+			assertFalse(reader.readGame(recorder));
+		}
+	}
+
+	@Test
+	void testErrors() {
+		assertInvalid("[Event]\n\n*");
+		assertInvalid("[Event \"x\"\n\n*");
+		assertInvalid("1. e4 (1. d4 *");
+		assertInvalid("1. e4 (1. d4");
+		assertInvalid("1. e4 ) *");
+		assertInvalid("1. e4 (1. d4 [Event \"x\"]) *");
+		assertInvalid("1. e4 !!! *");
+	}
+
+	@Test
+	void testSkipGame() throws IOException {
+		final String pgn = "[Event \"First\"]\n\n1. e4 -- 2. d4 *\n\n[Event \"Second\"]\n\n1. d4 *\n";
+		try (PgnReader reader = new PgnReader(new StringReader(pgn))) {
+			final Recorder recorder = new Recorder();
+			assertThrows(IllegalArgumentException.class, () -> reader.readGame(recorder));
+			assertEquals(3, reader.getLine());
+			reader.skipGame();
+			recorder.events.clear();
+			assertTrue(reader.readGame(recorder));
+			assertEquals(List.of("start 5", "Event=Second", "d4", "end *"), recorder.events);
+			reader.skipGame();
+			assertFalse(reader.readGame(recorder));
+		}
+	}
+
+	private static void assertInvalid(String pgn) {
+		try (PgnReader reader = new PgnReader(new StringReader(pgn))) {
+			assertThrows(IllegalArgumentException.class, () -> reader.read(new PgnReader.Handler() {}), pgn);
+		} catch (IOException e) {
+			fail(e);
+		}
+	}
+}
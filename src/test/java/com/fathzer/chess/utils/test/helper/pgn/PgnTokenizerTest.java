@@ -0,0 +1,89 @@
+package com.fathzer.chess.utils.test.helper.pgn;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static com.fathzer.chess.utils.test.helper.pgn.PgnTokenizer.TokenType.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.jupiter.api.Test;
+
+class PgnTokenizerTest {
+	private static final String PGN = "\uFEFF% An escaped line [ignored]\n" +
+			"[Event \"Quote \\\" and backslash \\\\\"]\n" +
+			"\n" +
+			"1. e4 {A comment\non two lines} e5 $1 2.Nf3!? (2. f4 ; a rest of line comment\n" +
+			"exf4) 2... Nc6 <reserved> 3. e8=Q+ 1/2-1/2\n";
+
+	@Test
+	void test() throws IOException {
+		try (PgnTokenizer tokenizer = new PgnTokenizer(new StringReader(PGN))) {
+			assertToken(tokenizer, LEFT_BRACKET, "", 2);
+			assertToken(tokenizer, SYMBOL, "Event", 2);
+			assertToken(tokenizer, STRING, "Quote \" and backslash \\", 2);
+			assertToken(tokenizer, RIGHT_BRACKET, "", 2);
+			assertToken(tokenizer, SYMBOL, "1", 4);
+			assertToken(tokenizer, PERIOD, "", 4);
+			assertToken(tokenizer, SYMBOL, "e4", 4);
+			assertToken(tokenizer, COMMENT, "A comment\non two lines", 4);
+			assertToken(tokenizer, SYMBOL, "e5", 5);
+			assertToken(tokenizer, NAG, "1", 5);
+			assertToken(tokenizer, SYMBOL, "2", 5);
+			assertToken(tokenizer, PERIOD, "", 5);
+			assertToken(tokenizer, SYMBOL, "Nf3", 5);
+			assertToken(tokenizer, SUFFIX, "!?", 5);
+			assertToken(tokenizer, LEFT_PARENTHESIS, "", 5);
+			assertToken(tokenizer, SYMBOL, "2", 5);
+			assertToken(tokenizer, PERIOD, "", 5);
+			assertToken(tokenizer, SYMBOL, "f4", 5);
+			assertToken(tokenizer, COMMENT, " a rest of line comment", 5);
+			assertToken(tokenizer, SYMBOL, "exf4", 6);
+			assertToken(tokenizer, RIGHT_PARENTHESIS, "", 6);
+			assertToken(tokenizer, SYMBOL, "2", 6);
+			for (int i = 0; i < 3; i++) {
+				assertToken(tokenizer, PERIOD, "", 6);
+			}
+			assertToken(tokenizer, SYMBOL, "Nc6", 6);
+			assertToken(tokenizer, SYMBOL, "3", 6);
+			assertToken(tokenizer, PERIOD, "", 6);
+			assertToken(tokenizer, SYMBOL, "e8=Q+", 6);
+			assertToken(tokenizer, SYMBOL, "1/2-1/2", 6);
+			assertTrue(tokenizer.isText("1/2-1/2"));
+			assertFalse(tokenizer.isText("1-0"));
+			assertNull(tokenizer.next());
+			assertNull(tokenizer.next());
+		}
+	}
+
+	@Test
+	void testLongToken() throws IOException {
+		// Longer than the internal buffers
+		final String comment = "x".repeat(100000);
+		try (PgnTokenizer tokenizer = new PgnTokenizer(new StringReader("{" + comment + "} *"))) {
+			assertToken(tokenizer, COMMENT, comment, 1);
+			assertToken(tokenizer, ASTERISK, "", 1);
+			assertNull(tokenizer.next());
+		}
+	}
+
+	@Test
+	void testErrors() throws IOException {
+		try (PgnTokenizer tokenizer = new PgnTokenizer(new StringReader("[Event \"unterminated]\n"))) {
+			assertEquals(LEFT_BRACKET, tokenizer.next());
+			assertEquals(SYMBOL, tokenizer.next());
+			assertThrows(IllegalArgumentException.class, tokenizer::next);
+		}
+		try (PgnTokenizer tokenizer = new PgnTokenizer(new StringReader("1. e4 &"))) {
+			assertEquals(SYMBOL, tokenizer.next());
+			assertEquals(PERIOD, tokenizer.next());
+			assertEquals(SYMBOL, tokenizer.next());
+			assertThrows(IllegalArgumentException.class, tokenizer::next);
+		}
+	}
+
+	private static void assertToken(PgnTokenizer tokenizer, PgnTokenizer.TokenType expectedType, String expectedText, long expectedLine) throws IOException {
+		assertEquals(expectedType, tokenizer.next());
+		assertEquals(expectedText, tokenizer.getText().toString());
+		assertEquals(expectedLine, tokenizer.getLine());
+	}
+}
@@ -3,13 +3,15 @@ package com.fathzer.chess.utils.test.jchess;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.fathzer.chess.utils.model.ForkableBoard;
+import com.fathzer.chess.utils.model.HashableBoard;
 import com.fathzer.chess.utils.model.IBoard;
 import com.fathzer.games.GameHistory;
 import com.fathzer.games.MoveGenerator.MoveConfidence;
 import com.fathzer.jchess.Board;
 import com.fathzer.jchess.Move;
 
-public class JChessBoard implements IBoard<JChessMove>{
+public class JChessBoard implements ForkableBoard<JChessMove>, HashableBoard<JChessMove> {
 	private final Board<Move> startBoard;
 	public final Board<Move> board;
 	private final List<Move> moves;
@@ -25,6 +27,11 @@ public class JChessBoard implements IBoard<JChessMove>{
 		return board.getMoves().stream().map(m -> new JChessMove(m, this.board)).toList();
 	}
 	
+	@Override
+	public int toPackedMove(JChessMove move) {
+		return move.getPacked();
+	}
+	
 	@Override
 	public boolean makeMove(JChessMove mv) {
 		final boolean isValid = board.makeMove(mv, MoveConfidence.UNSAFE);
@@ -40,6 +47,16 @@ public class JChessBoard implements IBoard<JChessMove>{
 		moves.remove(moves.size()-1);
 	}
 
+	@Override
+	public IBoard<JChessMove> fork() {
+		return new JChessBoard((Board<Move>) board.fork());
+	}
+
+	@Override
+	public long getHashKey() {
+		return board.getHashKey();
+	}
+
 	Board<Move> getBoard() {
 		return board;
 	}
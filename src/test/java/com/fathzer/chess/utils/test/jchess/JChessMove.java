@@ -1,5 +1,7 @@
 package com.fathzer.chess.utils.test.jchess;
 
+import com.fathzer.chess.utils.model.BoardPieceScanner;
+import com.fathzer.chess.utils.model.UCIMoves;
 import com.fathzer.jchess.Board;
 import com.fathzer.jchess.CoordinatesSystem;
 import com.fathzer.jchess.Move;
@@ -7,6 +9,7 @@ import com.fathzer.jchess.generic.BasicMove;
 
 class JChessMove extends BasicMove {
 	private String uci;
+	private final int packed;
 
 	JChessMove(Move move, Board<Move> board) {
 		super(move.getFrom(), move.getTo(), move.getPromotion());
@@ -15,6 +18,16 @@ class JChessMove extends BasicMove {
 		if (move.getPromotion() != null) {
 			uci += move.getPromotion().getNotation().toLowerCase();
 		}
+		final int promotion = move.getPromotion()==null ? BoardPieceScanner.NONE : (move.getPromotion().ordinal()+1)/2;
+		packed = UCIMoves.pack(toSquare(uci, 0), toSquare(uci, 2), promotion);
+	}
+	
+	private static int toSquare(String uci, int index) {
+		return (uci.charAt(index+1)-'1')*8 + uci.charAt(index)-'a';
+	}
+	
+	int getPacked() {
+		return packed;
 	}
 	
 	@Override